@@ -0,0 +1,43 @@
+/*
+ Copyright (c) 2026 by ScaleOut Software, Inc.
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+*/
+package com.scaleoutsoftware.digitaltwin.abstractions;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Bridges the {@link ByteBuffer} message overloads to their byte array counterparts.
+ */
+final class MessageBuffers {
+    private MessageBuffers() {}
+
+    /**
+     * Returns the remaining bytes of a buffer as an array without changing the buffer's position. The buffer's backing
+     * array is returned as is when it holds exactly the remaining bytes.
+     * @param buffer the buffer.
+     * @return the remaining bytes of the buffer.
+     */
+    static byte[] toArray(ByteBuffer buffer) {
+        if(buffer == null) {
+            return null;
+        }
+        if(buffer.hasArray() && buffer.arrayOffset() == 0 && buffer.position() == 0 && buffer.remaining() == buffer.array().length) {
+            return buffer.array();
+        }
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.duplicate().get(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,53 @@
+/*
+ Copyright (c) 2026 by ScaleOut Software, Inc.
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+*/
+package com.scaleoutsoftware.digitaltwin.abstractions;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Converts the messages of a {@link TypedMessageProcessor} between their serialized form and their message type.
+ * A codec is resolved once per model and is used by every thread that processes the model's messages, so
+ * implementations must be thread-safe.
+ * @param <M> the message type.
+ */
+public interface MessageCodec<M> {
+    /**
+     * Decodes a serialized message.
+     * @param message the serialized message.
+     * @return the decoded message.
+     * @throws Exception if the message cannot be decoded.
+     */
+    M decode(byte[] message) throws Exception;
+
+    /**
+     * Decodes a serialized message held in the remaining bytes of a {@link ByteBuffer} without changing the buffer's
+     * position. The default implementation copies the remaining bytes and calls {@link #decode(byte[])}.
+     * @param message the serialized message.
+     * @return the decoded message.
+     * @throws Exception if the message cannot be decoded.
+     */
+    default M decode(ByteBuffer message) throws Exception {
+        return decode(MessageBuffers.toArray(message));
+    }
+
+    /**
+     * Serializes a message.
+     * @param message the message.
+     * @return the serialized message.
+     * @throws Exception if the message cannot be encoded.
+     */
+    byte[] encode(M message) throws Exception;
+}
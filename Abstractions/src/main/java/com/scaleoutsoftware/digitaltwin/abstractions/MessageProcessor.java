@@ -16,6 +16,8 @@
 package com.scaleoutsoftware.digitaltwin.abstractions;
 
 import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.util.List;
 
 /**
  * Processes messages for a real-time digital twin.
@@ -37,5 +39,41 @@ public abstract class MessageProcessor<T extends DigitalTwinBase<T>> {
      * @throws Exception if an exception occurs during processing
      */
     public abstract ProcessingResult processMessage(ProcessingContext<T> context, T stateObject, byte[] incomingMessage) throws Exception;
-}
 
+    /**
+     * Processes an incoming message held in a {@link ByteBuffer}. The message is the buffer's remaining bytes; the
+     * buffer may be a slice of a larger buffer, such as a memory-mapped file. Override this method to read the message
+     * without copying it. The default implementation copies the remaining bytes, unless they are the buffer's entire
+     * backing array, and calls {@link #processMessage(ProcessingContext, DigitalTwinBase, byte[])}.
+     * @param context optional context for processing.
+     * @param stateObject the state object.
+     * @param incomingMessage the incoming message.
+     * @return processing results for updating the state object.
+     * @throws Exception if an exception occurs during processing
+     */
+    public ProcessingResult processMessage(ProcessingContext<T> context, T stateObject, ByteBuffer incomingMessage) throws Exception {
+        return processMessage(context, stateObject, MessageBuffers.toArray(incomingMessage));
+    }
+
+    /**
+     * Processes a batch of messages for the same real-time digital twin in one call. The runtime calls this method
+     * when the model coalesces pending messages into batches. The default implementation calls
+     * {@link #processMessage(ProcessingContext, DigitalTwinBase, byte[])} for each message in order and stops at the
+     * first message whose result is {@link ProcessingResult#Remove}; otherwise it returns
+     * {@link ProcessingResult#UpdateDigitalTwin} if any message updated the twin.
+     * @param context optional context for processing.
+     * @param stateObject the state object.
+     * @param incomingMessages the incoming messages, oldest first.
+     * @return processing results for updating the state object.
+     * @throws Exception if an exception occurs during processing
+     */
+    public ProcessingResult processMessages(ProcessingContext<T> context, T stateObject, List<byte[]> incomingMessages) throws Exception {
+        ProcessingResult result = ProcessingResult.NoUpdate;
+        for(byte[] message : incomingMessages) {
+            ProcessingResult res = processMessage(context, stateObject, message);
+            if(res == ProcessingResult.Remove) return res;
+            if(res == ProcessingResult.UpdateDigitalTwin) result = res;
+        }
+        return result;
+    }
+}
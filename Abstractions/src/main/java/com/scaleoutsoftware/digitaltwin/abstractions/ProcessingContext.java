@@ -16,6 +16,7 @@
 package com.scaleoutsoftware.digitaltwin.abstractions;
 
 import java.io.Serializable;
+import java.nio.ByteBuffer;
 import java.time.Duration;
 import java.util.Date;
 import java.util.concurrent.CompletableFuture;
@@ -48,6 +49,17 @@ public abstract class ProcessingContext<T extends DigitalTwinBase<T>> implements
      */
     public abstract CompletableFuture<SendingResult> sendToDataSource(byte[] payload);
 
+    /**
+     * Sends the remaining bytes of a {@link ByteBuffer} to a data source. See {@link #sendToDataSource(byte[])}.
+     * The default implementation copies the remaining bytes and calls {@link #sendToDataSource(byte[])}.
+     *
+     * @param payload the message (as a serialized JSON string)
+     * @return the sending result
+     */
+    public CompletableFuture<SendingResult> sendToDataSource(ByteBuffer payload) {
+        return sendToDataSource(MessageBuffers.toArray(payload));
+    }
+
     /**
      * <p>
      *     This method sends a serialized JSON message to a real-time digital twin
@@ -64,6 +76,21 @@ public abstract class ProcessingContext<T extends DigitalTwinBase<T>> implements
      */
     public abstract CompletableFuture<SendingResult> sendToDigitalTwin(String model, String id, byte[] payload);
 
+    /**
+     * Sends the remaining bytes of a {@link ByteBuffer} to a real-time digital twin. See
+     * {@link #sendToDigitalTwin(String, String, byte[])}. The buffer's contents must not change until the message has
+     * been processed. The default implementation copies the remaining bytes and calls
+     * {@link #sendToDigitalTwin(String, String, byte[])}.
+     *
+     * @param model the model of the digital twin
+     * @param id the id of the digital twin
+     * @param payload the serialized JSON message
+     * @return the sending result
+     */
+    public CompletableFuture<SendingResult> sendToDigitalTwin(String model, String id, ByteBuffer payload) {
+        return sendToDigitalTwin(model, id, MessageBuffers.toArray(payload));
+    }
+
     /**
      * <p>
      *     This method sends an alert message to configured systems.
@@ -15,10 +15,19 @@
 */
 package com.scaleoutsoftware.digitaltwin.abstractions;
 
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.BiFunction;
 
 /**
  * SharedData is used to access a model's, or globally, shared cache.
+ * <p>
+ * The atomic operations read and update a single key as one step, so concurrent twins do not need to build them from
+ * {@link #get(String)} and {@link #put(String, byte[])}. Implementations that do not support an atomic operation
+ * return a future that completes exceptionally with an {@link UnsupportedOperationException}.
+ * </p>
  */
 public interface SharedData {
     /**
@@ -28,6 +37,17 @@ public interface SharedData {
      */
     public CompletableFuture<CacheResult> get(String key);
 
+    /**
+     * Retrieves the value of a key on the calling thread. Use this method to read shared data in tight loops, such as
+     * reference tables read at every simulation step; implementations return the stored value without allocating a
+     * {@link CacheResult}. The default implementation waits for {@link #get(String)}.
+     * @param key the key mapping to a value.
+     * @return the value, or null if the key is not mapped.
+     */
+    public default byte[] getValue(String key) {
+        return get(key).join().getValue();
+    }
+
     /**
      * Put a new key/value mapping into the cache.
      * @param key the key mapping to a value.
@@ -48,4 +68,127 @@ public interface SharedData {
      * @return a cache result.
      */
     public CompletableFuture<CacheResult> clear();
+
+    /**
+     * Retrieves several objects from the cache in one operation. The default implementation issues a
+     * {@link #get(String)} for each key and combines the results.
+     * @param keys the keys mapping to values.
+     * @return the values of the keys that are mapped; unmapped keys are absent from the map.
+     */
+    public default CompletableFuture<Map<String, byte[]>> getAll(Collection<String> keys) {
+        Map<String, CompletableFuture<CacheResult>> pending = new HashMap<>();
+        for(String key : keys) {
+            pending.put(key, get(key));
+        }
+        return CompletableFuture.allOf(pending.values().toArray(new CompletableFuture[0])).thenApply(v -> {
+            Map<String, byte[]> values = new HashMap<>();
+            for(Map.Entry<String, CompletableFuture<CacheResult>> entry : pending.entrySet()) {
+                CacheResult result = entry.getValue().join();
+                if(result.getStatus() == CacheOperationStatus.ObjectRetrieved) values.put(entry.getKey(), result.getValue());
+            }
+            return values;
+        });
+    }
+
+    /**
+     * Puts several key/value mappings into the cache in one operation. The mappings are not applied atomically as a
+     * group. The default implementation issues a {@link #put(String, byte[])} for each mapping.
+     * @param values the key/value mappings.
+     * @return a future that completes when every mapping has been put.
+     */
+    public default CompletableFuture<Void> putAll(Map<String, byte[]> values) {
+        CompletableFuture<?>[] pending = new CompletableFuture[values.size()];
+        int i = 0;
+        for(Map.Entry<String, byte[]> entry : values.entrySet()) {
+            pending[i++] = put(entry.getKey(), entry.getValue());
+        }
+        return CompletableFuture.allOf(pending);
+    }
+
+    /**
+     * Removes several key/value mappings from the cache in one operation. The default implementation issues a
+     * {@link #remove(String)} for each key.
+     * @param keys the keys mapping to values.
+     * @return the removed values of the keys that were mapped; unmapped keys are absent from the map.
+     */
+    public default CompletableFuture<Map<String, byte[]>> removeAll(Collection<String> keys) {
+        Map<String, CompletableFuture<CacheResult>> pending = new HashMap<>();
+        for(String key : keys) {
+            pending.put(key, remove(key));
+        }
+        return CompletableFuture.allOf(pending.values().toArray(new CompletableFuture[0])).thenApply(v -> {
+            Map<String, byte[]> values = new HashMap<>();
+            for(Map.Entry<String, CompletableFuture<CacheResult>> entry : pending.entrySet()) {
+                CacheResult result = entry.getValue().join();
+                if(result.getStatus() == CacheOperationStatus.ObjectRemoved) values.put(entry.getKey(), result.getValue());
+            }
+            return values;
+        });
+    }
+
+    /**
+     * Put a new key/value mapping into the cache if the key is not mapped.
+     * @param key the key mapping to a value.
+     * @param value the value.
+     * @return a cache result with status {@link CacheOperationStatus#ObjectPut} if the value was put, or
+     * {@link CacheOperationStatus#ObjectRetrieved} and the existing value if the key was already mapped.
+     */
+    public default CompletableFuture<CacheResult> putIfAbsent(String key, byte[] value) {
+        CompletableFuture<CacheResult> result = new CompletableFuture<>();
+        result.completeExceptionally(new UnsupportedOperationException("putIfAbsent is not supported."));
+        return result;
+    }
+
+    /**
+     * Replace the value of a key if its current value has the expected contents.
+     * @param key the key mapping to a value.
+     * @param expected the expected value, or null if the key is expected to be unmapped.
+     * @param value the new value.
+     * @return a cache result with status {@link CacheOperationStatus#ObjectPut} if the value was replaced; otherwise
+     * {@link CacheOperationStatus#ObjectRetrieved} and the current value, or {@link CacheOperationStatus#ObjectDoesNotExist}
+     * if the key is not mapped.
+     */
+    public default CompletableFuture<CacheResult> compareAndSet(String key, byte[] expected, byte[] value) {
+        CompletableFuture<CacheResult> result = new CompletableFuture<>();
+        result.completeExceptionally(new UnsupportedOperationException("compareAndSet is not supported."));
+        return result;
+    }
+
+    /**
+     * Add to a counter and return its previous value. A counter is stored as an 8-byte big-endian long; an unmapped
+     * counter is 0.
+     * @param key the key mapping to a counter.
+     * @param delta the amount to add.
+     * @return the previous value of the counter.
+     */
+    public default CompletableFuture<Long> getAndAdd(String key, long delta) {
+        CompletableFuture<Long> result = new CompletableFuture<>();
+        result.completeExceptionally(new UnsupportedOperationException("getAndAdd is not supported."));
+        return result;
+    }
+
+    /**
+     * Increment a counter and return its previous value. See {@link #getAndAdd(String, long)}.
+     * @param key the key mapping to a counter.
+     * @return the previous value of the counter.
+     */
+    public default CompletableFuture<Long> getAndIncrement(String key) {
+        return getAndAdd(key, 1);
+    }
+
+    /**
+     * Compute a new value for a key from its current value. The remapping function receives the key and the current
+     * value, or null if the key is not mapped, and returns the new value, or null to remove the mapping. The function
+     * may be called while the key is locked, so it should be short and must not access this cache.
+     * @param key the key mapping to a value.
+     * @param remappingFunction the function that computes the new value.
+     * @return a cache result with the new value and status {@link CacheOperationStatus#ObjectPut}, or
+     * {@link CacheOperationStatus#ObjectRemoved} if the mapping was removed, or
+     * {@link CacheOperationStatus#ObjectDoesNotExist} if the key was not mapped and the function returned null.
+     */
+    public default CompletableFuture<CacheResult> compute(String key, BiFunction<String, byte[], byte[]> remappingFunction) {
+        CompletableFuture<CacheResult> result = new CompletableFuture<>();
+        result.completeExceptionally(new UnsupportedOperationException("compute is not supported."));
+        return result;
+    }
 }
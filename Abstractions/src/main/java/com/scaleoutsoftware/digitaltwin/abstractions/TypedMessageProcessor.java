@@ -0,0 +1,112 @@
+/*
+ Copyright (c) 2026 by ScaleOut Software, Inc.
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+*/
+package com.scaleoutsoftware.digitaltwin.abstractions;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Processes decoded messages for a real-time digital twin. The runtime decodes each incoming message once with the
+ * processor's {@link MessageCodec}, or with a JSON codec for the message type when the processor does not supply one,
+ * and passes the decoded message to {@link #processTypedMessage(ProcessingContext, DigitalTwinBase, Object)}. A
+ * message sent to several digital twins may be decoded once and passed to each of them, so decoded messages must not
+ * be modified.
+ * @param <T> the real type of the DigitalTwinBase
+ * @param <M> the message type
+ */
+public abstract class TypedMessageProcessor<T extends DigitalTwinBase<T>, M> extends MessageProcessor<T> {
+    private final Class<M>          _messageType;
+    private final MessageCodec<M>   _codec;
+
+    /**
+     * Creates a processor whose messages are decoded with the runtime's JSON codec.
+     * @param messageType the message type.
+     */
+    public TypedMessageProcessor(Class<M> messageType) {
+        this(messageType, null);
+    }
+
+    /**
+     * Creates a processor whose messages are decoded with the given codec.
+     * @param messageType the message type.
+     * @param codec the codec, or null to use the runtime's JSON codec.
+     */
+    public TypedMessageProcessor(Class<M> messageType, MessageCodec<M> codec) {
+        if(messageType == null) throw new IllegalArgumentException("Message type is required.");
+        _messageType    = messageType;
+        _codec          = codec;
+    }
+
+    /**
+     * Retrieves the message type.
+     * @return the message type.
+     */
+    public Class<M> getMessageType() {
+        return _messageType;
+    }
+
+    /**
+     * Retrieves the codec of this processor.
+     * @return the codec, or null if the runtime's JSON codec is used.
+     */
+    public MessageCodec<M> getMessageCodec() {
+        return _codec;
+    }
+
+    /**
+     * Processes a decoded message and determines whether to update the real-time digital twin.
+     * @param context optional context for processing.
+     * @param stateObject the state object.
+     * @param message the decoded message.
+     * @return processing results for updating the state object.
+     * @throws Exception if an exception occurs during processing
+     */
+    public abstract ProcessingResult processTypedMessage(ProcessingContext<T> context, T stateObject, M message) throws Exception;
+
+    /**
+     * Decodes the message with this processor's codec and calls
+     * {@link #processTypedMessage(ProcessingContext, DigitalTwinBase, Object)}. The runtime decodes messages itself and
+     * does not call this method.
+     * @param context optional context for processing.
+     * @param stateObject the state object.
+     * @param incomingMessage the incoming message.
+     * @return processing results for updating the state object.
+     * @throws Exception if an exception occurs during processing, or if this processor has no codec.
+     */
+    @Override
+    public ProcessingResult processMessage(ProcessingContext<T> context, T stateObject, byte[] incomingMessage) throws Exception {
+        return processTypedMessage(context, stateObject, requireCodec().decode(incomingMessage));
+    }
+
+    /**
+     * Decodes the message with this processor's codec and calls
+     * {@link #processTypedMessage(ProcessingContext, DigitalTwinBase, Object)}. The runtime decodes messages itself and
+     * does not call this method.
+     * @param context optional context for processing.
+     * @param stateObject the state object.
+     * @param incomingMessage the incoming message.
+     * @return processing results for updating the state object.
+     * @throws Exception if an exception occurs during processing, or if this processor has no codec.
+     */
+    @Override
+    public ProcessingResult processMessage(ProcessingContext<T> context, T stateObject, ByteBuffer incomingMessage) throws Exception {
+        return processTypedMessage(context, stateObject, requireCodec().decode(incomingMessage));
+    }
+
+    private MessageCodec<M> requireCodec() {
+        if(_codec == null) throw new IllegalStateException("TypedMessageProcessor has no codec; messages are decoded by the runtime.");
+        return _codec;
+    }
+}
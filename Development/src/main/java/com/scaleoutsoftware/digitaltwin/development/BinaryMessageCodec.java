@@ -0,0 +1,205 @@
+/*
+ Copyright (c) 2026 by ScaleOut Software, Inc.
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+*/
+package com.scaleoutsoftware.digitaltwin.development;
+
+import com.scaleoutsoftware.digitaltwin.abstractions.MessageCodec;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * A compact binary {@link MessageCodec}. A message is the values of the message type's non-static, non-transient
+ * fields, ordered from the top of the class hierarchy down and by name within each class: primitives in big-endian
+ * order, and boxed values, strings (UTF-8), byte arrays and enums (ordinal) as a presence byte followed by the value.
+ * The field layout is resolved once when the codec is created. The message type needs a parameterless constructor.
+ * @param <M> the message type.
+ */
+public class BinaryMessageCodec<M> implements MessageCodec<M> {
+    private static final byte BOOLEAN = 0, BYTE = 1, SHORT = 2, CHAR = 3, INT = 4, LONG = 5, FLOAT = 6, DOUBLE = 7,
+                              BOXED_BOOLEAN = 8, BOXED_BYTE = 9, BOXED_SHORT = 10, BOXED_CHAR = 11, BOXED_INT = 12,
+                              BOXED_LONG = 13, BOXED_FLOAT = 14, BOXED_DOUBLE = 15, STRING = 16, BYTES = 17, ENUM = 18;
+
+    private final Constructor<M>    _constructor;
+    private final Field[]           _fields;
+    private final byte[]            _kinds;
+
+    /**
+     * Creates a binary codec for a message type.
+     * @param messageType the message type.
+     * @throws IllegalArgumentException if the message type has no parameterless constructor or has a field whose type
+     * is not a primitive, a boxed primitive, a String, a byte array, or an enum.
+     */
+    public BinaryMessageCodec(Class<M> messageType) {
+        try {
+            _constructor = messageType.getDeclaredConstructor();
+            _constructor.setAccessible(true);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalArgumentException(String.format("%s has no parameterless constructor.", messageType.getName()), e);
+        }
+        LinkedList<Class<?>> hierarchy = new LinkedList<>();
+        for(Class<?> c = messageType; c != null && c != Object.class; c = c.getSuperclass()) {
+            hierarchy.addFirst(c);
+        }
+        List<Field> fields = new ArrayList<>();
+        for(Class<?> c : hierarchy) {
+            List<Field> declared = new ArrayList<>();
+            for(Field f : c.getDeclaredFields()) {
+                if(Modifier.isStatic(f.getModifiers()) || Modifier.isTransient(f.getModifiers()) || f.isSynthetic()) continue;
+                declared.add(f);
+            }
+            declared.sort(Comparator.comparing(Field::getName));
+            fields.addAll(declared);
+        }
+        _fields = fields.toArray(new Field[0]);
+        _kinds  = new byte[_fields.length];
+        for(int i = 0; i < _fields.length; i++) {
+            _fields[i].setAccessible(true);
+            _kinds[i] = kindOf(_fields[i]);
+        }
+    }
+
+    @Override
+    public M decode(byte[] message) throws Exception {
+        return read(ByteBuffer.wrap(message));
+    }
+
+    @Override
+    public M decode(ByteBuffer message) throws Exception {
+        return read(message.duplicate());
+    }
+
+    @Override
+    public byte[] encode(M message) throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        DataOutputStream out = new DataOutputStream(bytes);
+        for(int i = 0; i < _fields.length; i++) {
+            Field f = _fields[i];
+            byte kind = _kinds[i];
+            switch(kind) {
+                case BOOLEAN:   out.writeBoolean(f.getBoolean(message)); continue;
+                case BYTE:      out.writeByte(f.getByte(message)); continue;
+                case SHORT:     out.writeShort(f.getShort(message)); continue;
+                case CHAR:      out.writeChar(f.getChar(message)); continue;
+                case INT:       out.writeInt(f.getInt(message)); continue;
+                case LONG:      out.writeLong(f.getLong(message)); continue;
+                case FLOAT:     out.writeFloat(f.getFloat(message)); continue;
+                case DOUBLE:    out.writeDouble(f.getDouble(message)); continue;
+                default:        break;
+            }
+            Object value = f.get(message);
+            out.writeBoolean(value != null);
+            if(value == null) continue;
+            switch(kind) {
+                case BOXED_BOOLEAN: out.writeBoolean((Boolean) value); break;
+                case BOXED_BYTE:    out.writeByte((Byte) value); break;
+                case BOXED_SHORT:   out.writeShort((Short) value); break;
+                case BOXED_CHAR:    out.writeChar((Character) value); break;
+                case BOXED_INT:     out.writeInt((Integer) value); break;
+                case BOXED_LONG:    out.writeLong((Long) value); break;
+                case BOXED_FLOAT:   out.writeFloat((Float) value); break;
+                case BOXED_DOUBLE:  out.writeDouble((Double) value); break;
+                case STRING:        writeBytes(out, ((String) value).getBytes(StandardCharsets.UTF_8)); break;
+                case BYTES:         writeBytes(out, (byte[]) value); break;
+                case ENUM:          out.writeInt(((Enum<?>) value).ordinal()); break;
+                default:            throw new IllegalStateException("Unknown field kind " + kind);
+            }
+        }
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    private M read(ByteBuffer in) throws Exception {
+        M message = _constructor.newInstance();
+        for(int i = 0; i < _fields.length; i++) {
+            Field f = _fields[i];
+            byte kind = _kinds[i];
+            switch(kind) {
+                case BOOLEAN:   f.setBoolean(message, in.get() != 0); continue;
+                case BYTE:      f.setByte(message, in.get()); continue;
+                case SHORT:     f.setShort(message, in.getShort()); continue;
+                case CHAR:      f.setChar(message, in.getChar()); continue;
+                case INT:       f.setInt(message, in.getInt()); continue;
+                case LONG:      f.setLong(message, in.getLong()); continue;
+                case FLOAT:     f.setFloat(message, in.getFloat()); continue;
+                case DOUBLE:    f.setDouble(message, in.getDouble()); continue;
+                default:        break;
+            }
+            if(in.get() == 0) {
+                f.set(message, null);
+                continue;
+            }
+            switch(kind) {
+                case BOXED_BOOLEAN: f.set(message, in.get() != 0); break;
+                case BOXED_BYTE:    f.set(message, in.get()); break;
+                case BOXED_SHORT:   f.set(message, in.getShort()); break;
+                case BOXED_CHAR:    f.set(message, in.getChar()); break;
+                case BOXED_INT:     f.set(message, in.getInt()); break;
+                case BOXED_LONG:    f.set(message, in.getLong()); break;
+                case BOXED_FLOAT:   f.set(message, in.getFloat()); break;
+                case BOXED_DOUBLE:  f.set(message, in.getDouble()); break;
+                case STRING:        f.set(message, new String(readBytes(in), StandardCharsets.UTF_8)); break;
+                case BYTES:         f.set(message, readBytes(in)); break;
+                case ENUM:          f.set(message, f.getType().getEnumConstants()[in.getInt()]); break;
+                default:            throw new IllegalStateException("Unknown field kind " + kind);
+            }
+        }
+        return message;
+    }
+
+    private static void writeBytes(DataOutputStream out, byte[] bytes) throws Exception {
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static byte[] readBytes(ByteBuffer in) {
+        byte[] bytes = new byte[in.getInt()];
+        in.get(bytes);
+        return bytes;
+    }
+
+    private static byte kindOf(Field f) {
+        Class<?> type = f.getType();
+        if(type == boolean.class)   return BOOLEAN;
+        if(type == byte.class)      return BYTE;
+        if(type == short.class)     return SHORT;
+        if(type == char.class)      return CHAR;
+        if(type == int.class)       return INT;
+        if(type == long.class)      return LONG;
+        if(type == float.class)     return FLOAT;
+        if(type == double.class)    return DOUBLE;
+        if(type == Boolean.class)   return BOXED_BOOLEAN;
+        if(type == Byte.class)      return BOXED_BYTE;
+        if(type == Short.class)     return BOXED_SHORT;
+        if(type == Character.class) return BOXED_CHAR;
+        if(type == Integer.class)   return BOXED_INT;
+        if(type == Long.class)      return BOXED_LONG;
+        if(type == Float.class)     return BOXED_FLOAT;
+        if(type == Double.class)    return BOXED_DOUBLE;
+        if(type == String.class)    return STRING;
+        if(type == byte[].class)    return BYTES;
+        if(type.isEnum())           return ENUM;
+        throw new IllegalArgumentException(String.format("Field %s of type %s is not supported by the binary codec.", f.getName(), type.getName()));
+    }
+}
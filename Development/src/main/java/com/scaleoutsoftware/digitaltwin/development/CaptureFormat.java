@@ -0,0 +1,35 @@
+/*
+ Copyright (c) 2026 by ScaleOut Software, Inc.
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+*/
+package com.scaleoutsoftware.digitaltwin.development;
+
+/**
+ * The format of a telemetry capture file replayed by {@link TelemetryReplay}.
+ */
+public enum CaptureFormat {
+    /**
+     * Newline-delimited JSON. Each line is a JSON object with the string fields "model" and "id", an optional numeric
+     * "timestamp" in milliseconds, and a "payload" whose JSON text is sent as the message, for example
+     * <pre>{"model":"Car","id":"car1","timestamp":1700000000000,"payload":{"pressureChange":2}}</pre>
+     * Blank lines are skipped.
+     */
+    NDJson,
+    /**
+     * Length-prefixed binary records. Each record is a big-endian int length followed by the UTF-8 model name, an int
+     * length followed by the UTF-8 twin id, a long timestamp in milliseconds, and an int length followed by the
+     * payload bytes.
+     */
+    Binary
+}
@@ -0,0 +1,100 @@
+/*
+ Copyright (c) 2026 by ScaleOut Software, Inc.
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+*/
+package com.scaleoutsoftware.digitaltwin.development;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.scaleoutsoftware.digitaltwin.abstractions.MessageCodec;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A {@link MessageCodec} for UTF-8 JSON messages. The Gson type adapter of the message type is resolved once, and
+ * messages are decoded with Gson's streaming reader directly from the message bytes. This is the codec the workbench
+ * uses for a {@link com.scaleoutsoftware.digitaltwin.abstractions.TypedMessageProcessor} that does not supply one.
+ * @param <M> the message type.
+ */
+public class JsonMessageCodec<M> implements MessageCodec<M> {
+    private final TypeAdapter<M> _adapter;
+
+    /**
+     * Creates a JSON codec for a message type.
+     * @param messageType the message type.
+     */
+    public JsonMessageCodec(Class<M> messageType) {
+        this(messageType, new Gson());
+    }
+
+    /**
+     * Creates a JSON codec for a message type that uses a configured {@link Gson} instance.
+     * @param messageType the message type.
+     * @param gson the Gson instance.
+     */
+    public JsonMessageCodec(Class<M> messageType, Gson gson) {
+        _adapter = gson.getAdapter(messageType);
+    }
+
+    @Override
+    public M decode(byte[] message) throws Exception {
+        return read(new ByteArrayInputStream(message));
+    }
+
+    @Override
+    public M decode(ByteBuffer message) throws Exception {
+        if(message.hasArray()) {
+            return read(new ByteArrayInputStream(message.array(), message.arrayOffset() + message.position(), message.remaining()));
+        }
+        return read(new ByteBufferInputStream(message.duplicate()));
+    }
+
+    @Override
+    public byte[] encode(M message) throws Exception {
+        return _adapter.toJson(message).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private M read(InputStream in) throws Exception {
+        try (Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8)) {
+            return _adapter.read(new JsonReader(reader));
+        }
+    }
+
+    private static class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer _buffer;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            _buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return _buffer.hasRemaining() ? _buffer.get() & 0xff : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if(!_buffer.hasRemaining()) return -1;
+            int n = Math.min(len, _buffer.remaining());
+            _buffer.get(b, off, n);
+            return n;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ Copyright (c) 2026 by ScaleOut Software, Inc.
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+*/
+package com.scaleoutsoftware.digitaltwin.development;
+
+/**
+ * Records latencies in nanoseconds into log-linear buckets: 16 buckets per power of two, so percentiles are accurate
+ * to within 1/16 of the value without storing every sample.
+ */
+class LatencyHistogram {
+    private static final int    SUB_BUCKET_BITS = 4;
+    private static final int    SUB_BUCKETS     = 1 << SUB_BUCKET_BITS;
+
+    private final long[]        _counts = new long[64 * SUB_BUCKETS];
+    private long                _count;
+    private long                _total;
+    private long                _max;
+
+    void record(long nanos) {
+        if(nanos < 0) nanos = 0;
+        _counts[index(nanos)]++;
+        _count++;
+        _total += nanos;
+        if(nanos > _max) _max = nanos;
+    }
+
+    long getCount() {
+        return _count;
+    }
+
+    long getMax() {
+        return _max;
+    }
+
+    double getMean() {
+        return _count == 0 ? 0 : (double)_total / _count;
+    }
+
+    // the lowest value of the bucket that holds the given fraction of the samples
+    long getPercentile(double fraction) {
+        if(_count == 0) return 0;
+        long target = Math.max(1, (long)Math.ceil(fraction * _count));
+        long seen = 0;
+        for(int i = 0; i < _counts.length; i++) {
+            seen += _counts[i];
+            if(seen >= target) return Math.min(value(i), _max);
+        }
+        return _max;
+    }
+
+    private static int index(long nanos) {
+        if(nanos < SUB_BUCKETS) return (int)nanos;
+        int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+        int sub = (int)(nanos >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    private static long value(int index) {
+        if(index < SUB_BUCKETS) return index;
+        int exponent = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        long sub = index % SUB_BUCKETS;
+        return (SUB_BUCKETS + sub) << (exponent - SUB_BUCKET_BITS);
+    }
+}
@@ -0,0 +1,524 @@
+/*
+ Copyright (c) 2026 by ScaleOut Software, Inc.
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+*/
+package com.scaleoutsoftware.digitaltwin.development;
+
+import com.scaleoutsoftware.digitaltwin.abstractions.CacheOperationStatus;
+import com.scaleoutsoftware.digitaltwin.abstractions.CacheResult;
+import com.scaleoutsoftware.digitaltwin.abstractions.SharedData;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiFunction;
+
+/**
+ * {@link SharedData} stored off-heap in a memory-mapped file, for large reference data such as route graphs or
+ * calibration curves that would otherwise inflate the Java heap. Use it as a workbench's global shared data with
+ * {@link Workbench#setSharedGlobalData(SharedData)}.
+ * <p>
+ * The file holds a header, an open-addressing index with a fixed number of slots, and an append-only region of
+ * key/value records. A file written by {@link #create(Path, int, long)} can be reopened with {@link #open(Path)}
+ * without reading or deserializing its records. {@link #getBuffer(String)} returns a read-only view of a value in the
+ * mapping without copying it; the {@link SharedData} methods return copies. Replaced and removed values are not
+ * reclaimed until {@link #clear()}, so views stay valid until the data is cleared or closed.
+ * </p>
+ * <p>
+ * Reads run concurrently; writes, including the atomic {@link SharedData} operations, are serialized.
+ * </p>
+ */
+public class MappedSharedData implements SharedData, Closeable {
+    private static final int    MAGIC           = 0x53444d31;
+    private static final int    VERSION         = 1;
+    private static final int    HEADER_SIZE     = 64;
+    private static final int    SLOT_SIZE       = 16;
+    private static final int    SEGMENT_BITS    = 30;
+    private static final long   SEGMENT_SIZE    = 1L << SEGMENT_BITS;
+    private static final long   EMPTY           = 0;
+    private static final long   DELETED         = -1;
+    // header offsets
+    private static final int    SLOT_COUNT      = 8;
+    private static final int    ENTRY_COUNT     = 12;
+    private static final int    USED_SLOTS      = 16;
+    private static final int    DATA_END        = 24;
+
+    private final FileChannel               _channel;
+    private final MappedByteBuffer[]        _segments;
+    private final int                       _slotCount;
+    private final long                      _dataStart;
+    private final long                      _capacity;
+    private final ReentrantReadWriteLock    _lock = new ReentrantReadWriteLock();
+    private int                             _entryCount;
+    private int                             _usedSlots;
+    private long                            _dataEnd;
+    private volatile boolean                _closed;
+
+    private MappedSharedData(FileChannel channel) throws IOException {
+        _channel    = channel;
+        _capacity   = channel.size();
+        if(_capacity < HEADER_SIZE) throw new IOException("The file is not a mapped shared data file.");
+        _segments   = new MappedByteBuffer[(int)((_capacity + SEGMENT_SIZE - 1) >>> SEGMENT_BITS)];
+        for(int i = 0; i < _segments.length; i++) {
+            long start = (long)i << SEGMENT_BITS;
+            _segments[i] = channel.map(FileChannel.MapMode.READ_WRITE, start, Math.min(SEGMENT_SIZE, _capacity - start));
+        }
+        ByteBuffer header = _segments[0];
+        if(header.getInt(0) != MAGIC) throw new IOException("The file is not a mapped shared data file.");
+        if(header.getInt(4) != VERSION) throw new IOException(String.format("Unsupported mapped shared data version %d.", header.getInt(4)));
+        _slotCount  = header.getInt(SLOT_COUNT);
+        _entryCount = header.getInt(ENTRY_COUNT);
+        _usedSlots  = header.getInt(USED_SLOTS);
+        _dataEnd    = header.getLong(DATA_END);
+        _dataStart  = HEADER_SIZE + (long)_slotCount * SLOT_SIZE;
+        if(Integer.bitCount(_slotCount) != 1 || _dataEnd < _dataStart || _dataEnd > _capacity) {
+            throw new IOException("The mapped shared data file is corrupt.");
+        }
+    }
+
+    /**
+     * Creates an empty mapped shared data file, replacing any existing file.
+     *
+     * @param file the file.
+     * @param maxEntries the maximum number of keys.
+     * @param dataCapacity the number of bytes available for keys and values. Every put appends a record of the key and
+     * value plus 8 bytes.
+     * @return the mapped shared data.
+     * @throws IOException if the file cannot be created.
+     */
+    public static MappedSharedData create(Path file, int maxEntries, long dataCapacity) throws IOException {
+        if(maxEntries <= 0) throw new IllegalArgumentException("maxEntries must be greater-than 0.");
+        if(dataCapacity <= 0) throw new IllegalArgumentException("dataCapacity must be greater-than 0.");
+        // the index is kept at most three quarters full
+        int slotCount = Integer.highestOneBit((int)Math.min(1 << 29, maxEntries * 4L / 3 + 1) * 2 - 1);
+        long dataStart = HEADER_SIZE + (long)slotCount * SLOT_SIZE;
+        try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+            raf.setLength(0);
+            raf.setLength(dataStart + dataCapacity);
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(0, MAGIC);
+            header.putInt(4, VERSION);
+            header.putInt(SLOT_COUNT, slotCount);
+            header.putLong(DATA_END, dataStart);
+            raf.getChannel().write(header, 0);
+        }
+        return open(file);
+    }
+
+    /**
+     * Opens an existing mapped shared data file. The records are mapped, not read.
+     *
+     * @param file the file.
+     * @return the mapped shared data.
+     * @throws IOException if the file cannot be opened or is not a mapped shared data file.
+     */
+    public static MappedSharedData open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            return new MappedSharedData(channel);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Retrieves a read-only view of a value in the mapped file without copying it. The view's position is 0 and its
+     * remaining bytes are the value.
+     *
+     * @param key the key mapping to a value.
+     * @return the value, or null if the key is not mapped.
+     */
+    public ByteBuffer getBuffer(String key) {
+        _lock.readLock().lock();
+        try {
+            ensureOpen();
+            long record = find(key, key.getBytes(StandardCharsets.UTF_8));
+            if(record == EMPTY) return null;
+            long value = valueOffset(record);
+            ByteBuffer view = segment(value).duplicate();
+            int start = (int)(value & (SEGMENT_SIZE - 1)) + 4;
+            ((Buffer) view).limit(start + getInt(value));
+            ((Buffer) view).position(start);
+            return view.slice().asReadOnlyBuffer();
+        } finally {
+            _lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Retrieves the number of keys.
+     * @return the number of keys.
+     */
+    public int size() {
+        _lock.readLock().lock();
+        try {
+            return _entryCount;
+        } finally {
+            _lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public byte[] getValue(String key) {
+        ByteBuffer view = getBuffer(key);
+        if(view == null) return null;
+        byte[] value = new byte[view.remaining()];
+        view.get(value);
+        return value;
+    }
+
+    @Override
+    public CompletableFuture<CacheResult> get(String key) {
+        byte[] value;
+        try {
+            value = getValue(key);
+        } catch (RuntimeException e) {
+            return failed(e);
+        }
+        return result(key, value, value != null ? CacheOperationStatus.ObjectRetrieved : CacheOperationStatus.ObjectDoesNotExist);
+    }
+
+    @Override
+    public CompletableFuture<CacheResult> put(String key, byte[] value) {
+        if(value == null) return remove(key);
+        _lock.writeLock().lock();
+        try {
+            ensureOpen();
+            byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+            store(key, keyBytes, findSlot(key, keyBytes), value);
+        } catch (RuntimeException e) {
+            return failed(e);
+        } finally {
+            _lock.writeLock().unlock();
+        }
+        return result(key, value, CacheOperationStatus.ObjectPut);
+    }
+
+    @Override
+    public CompletableFuture<CacheResult> remove(String key) {
+        byte[] value;
+        _lock.writeLock().lock();
+        try {
+            ensureOpen();
+            byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+            int slot = findSlot(key, keyBytes);
+            value = value(slot);
+            if(value != null) delete(slot);
+        } catch (RuntimeException e) {
+            return failed(e);
+        } finally {
+            _lock.writeLock().unlock();
+        }
+        return result(key, value, value != null ? CacheOperationStatus.ObjectRemoved : CacheOperationStatus.ObjectDoesNotExist);
+    }
+
+    @Override
+    public CompletableFuture<CacheResult> putIfAbsent(String key, byte[] value) {
+        if(value == null) return failed(new IllegalArgumentException("Value is required."));
+        byte[] existing;
+        _lock.writeLock().lock();
+        try {
+            ensureOpen();
+            byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+            int slot = findSlot(key, keyBytes);
+            existing = value(slot);
+            if(existing == null) store(key, keyBytes, slot, value);
+        } catch (RuntimeException e) {
+            return failed(e);
+        } finally {
+            _lock.writeLock().unlock();
+        }
+        return existing == null ? result(key, value, CacheOperationStatus.ObjectPut) : result(key, existing, CacheOperationStatus.ObjectRetrieved);
+    }
+
+    @Override
+    public CompletableFuture<CacheResult> compareAndSet(String key, byte[] expected, byte[] value) {
+        if(value == null) return failed(new IllegalArgumentException("Value is required."));
+        byte[] current;
+        _lock.writeLock().lock();
+        try {
+            ensureOpen();
+            byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+            int slot = findSlot(key, keyBytes);
+            current = value(slot);
+            if(Arrays.equals(current, expected)) store(key, keyBytes, slot, value);
+        } catch (RuntimeException e) {
+            return failed(e);
+        } finally {
+            _lock.writeLock().unlock();
+        }
+        if(Arrays.equals(current, expected)) return result(key, value, CacheOperationStatus.ObjectPut);
+        return current == null ? result(key, null, CacheOperationStatus.ObjectDoesNotExist) : result(key, current, CacheOperationStatus.ObjectRetrieved);
+    }
+
+    @Override
+    public CompletableFuture<Long> getAndAdd(String key, long delta) {
+        long previous;
+        _lock.writeLock().lock();
+        try {
+            ensureOpen();
+            byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+            int slot = findSlot(key, keyBytes);
+            byte[] current = value(slot);
+            if(current != null && current.length != Long.BYTES) throw new IllegalStateException(String.format("The value of %s is not a counter.", key));
+            previous = current == null ? 0 : ByteBuffer.wrap(current).getLong();
+            store(key, keyBytes, slot, ByteBuffer.allocate(Long.BYTES).putLong(previous + delta).array());
+        } catch (RuntimeException e) {
+            return failed(e);
+        } finally {
+            _lock.writeLock().unlock();
+        }
+        return CompletableFuture.completedFuture(previous);
+    }
+
+    @Override
+    public CompletableFuture<CacheResult> compute(String key, BiFunction<String, byte[], byte[]> remappingFunction) {
+        if(remappingFunction == null) return failed(new IllegalArgumentException("Remapping function is required."));
+        byte[] current;
+        byte[] updated;
+        _lock.writeLock().lock();
+        try {
+            ensureOpen();
+            byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+            int slot = findSlot(key, keyBytes);
+            current = value(slot);
+            updated = remappingFunction.apply(key, current);
+            if(updated != null) store(key, keyBytes, slot, updated);
+            else if(current != null) delete(slot);
+        } catch (RuntimeException e) {
+            return failed(e);
+        } finally {
+            _lock.writeLock().unlock();
+        }
+        if(updated != null) return result(key, updated, CacheOperationStatus.ObjectPut);
+        return result(key, null, current != null ? CacheOperationStatus.ObjectRemoved : CacheOperationStatus.ObjectDoesNotExist);
+    }
+
+    @Override
+    public CompletableFuture<CacheResult> clear() {
+        _lock.writeLock().lock();
+        try {
+            ensureOpen();
+            for(int slot = 0; slot < _slotCount; slot++) {
+                putLong(slotOffset(slot), EMPTY);
+            }
+            _entryCount = 0;
+            _usedSlots  = 0;
+            _dataEnd    = _dataStart;
+            writeHeader();
+        } catch (RuntimeException e) {
+            return failed(e);
+        } finally {
+            _lock.writeLock().unlock();
+        }
+        return result(null, null, CacheOperationStatus.CacheCleared);
+    }
+
+    /**
+     * Writes the mapped file's changes to the storage device.
+     */
+    public void force() {
+        _lock.readLock().lock();
+        try {
+            ensureOpen();
+            for(MappedByteBuffer segment : _segments) {
+                segment.force();
+            }
+        } finally {
+            _lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Writes the mapped file's changes to the storage device and closes the file.
+     *
+     * @throws IOException if the file cannot be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        _lock.writeLock().lock();
+        try {
+            if(_closed) return;
+            for(MappedByteBuffer segment : _segments) {
+                segment.force();
+            }
+            _closed = true;
+            _channel.close();
+        } finally {
+            _lock.writeLock().unlock();
+        }
+    }
+
+    // the record of the key, or EMPTY
+    private long find(String key, byte[] keyBytes) {
+        long record = getLong(slotOffset(findSlot(key, keyBytes)));
+        return record == DELETED ? EMPTY : record;
+    }
+
+    // the slot that holds the key or, if the key is not mapped, the slot to insert it into
+    private int findSlot(String key, byte[] keyBytes) {
+        int hash = key.hashCode();
+        int mask = _slotCount - 1;
+        int slot = (hash ^ (hash >>> 16)) & mask;
+        int firstDeleted = -1;
+        for(int probes = 0; probes < _slotCount; probes++, slot = (slot + 1) & mask) {
+            long offset = slotOffset(slot);
+            long record = getLong(offset);
+            if(record == EMPTY) return firstDeleted >= 0 ? firstDeleted : slot;
+            if(record == DELETED) {
+                if(firstDeleted < 0) firstDeleted = slot;
+            } else if(getInt(offset + 8) == hash && keyEquals(record, keyBytes)) {
+                return slot;
+            }
+        }
+        if(firstDeleted >= 0) return firstDeleted;
+        throw new IllegalStateException("The mapped shared data index is full.");
+    }
+
+    // a copy of the value in a slot, or null
+    private byte[] value(int slot) {
+        long record = getLong(slotOffset(slot));
+        if(record == EMPTY || record == DELETED) return null;
+        long valueOffset = valueOffset(record);
+        byte[] value = new byte[getInt(valueOffset)];
+        ByteBuffer view = segment(valueOffset).duplicate();
+        ((Buffer) view).position((int)(valueOffset & (SEGMENT_SIZE - 1)) + 4);
+        view.get(value);
+        return value;
+    }
+
+    // maps the key in a slot returned by findSlot to a value; the caller holds the write lock
+    private void store(String key, byte[] keyBytes, int slot, byte[] value) {
+        long existing = getLong(slotOffset(slot));
+        if(existing == EMPTY && (_usedSlots + 1L) * 4 > _slotCount * 3L) {
+            throw new IllegalStateException("The mapped shared data index is full.");
+        }
+        long record = append(keyBytes, value);
+        if(existing == EMPTY || existing == DELETED) {
+            if(existing == EMPTY) _usedSlots++;
+            _entryCount++;
+            putInt(slotOffset(slot) + 8, key.hashCode());
+        }
+        putLong(slotOffset(slot), record);
+        writeHeader();
+    }
+
+    // unmaps the key in a mapped slot; the caller holds the write lock
+    private void delete(int slot) {
+        putLong(slotOffset(slot), DELETED);
+        _entryCount--;
+        writeHeader();
+    }
+
+    private boolean keyEquals(long record, byte[] keyBytes) {
+        if(getInt(record) != keyBytes.length) return false;
+        ByteBuffer segment = segment(record);
+        int start = (int)(record & (SEGMENT_SIZE - 1)) + 4;
+        for(int i = 0; i < keyBytes.length; i++) {
+            if(segment.get(start + i) != keyBytes[i]) return false;
+        }
+        return true;
+    }
+
+    private long valueOffset(long record) {
+        return record + 4 + getInt(record);
+    }
+
+    // appends a record; records never span two mapped segments
+    private long append(byte[] keyBytes, byte[] value) {
+        long length = 8L + keyBytes.length + value.length;
+        if(length > SEGMENT_SIZE) throw new IllegalArgumentException("The value is too large for mapped shared data.");
+        long record = _dataEnd;
+        if((record >>> SEGMENT_BITS) != ((record + length - 1) >>> SEGMENT_BITS)) {
+            record = ((record >>> SEGMENT_BITS) + 1) << SEGMENT_BITS;
+        }
+        if(record + length > _capacity) throw new IllegalStateException("The mapped shared data file is full.");
+        ByteBuffer segment = segment(record).duplicate();
+        ((Buffer) segment).position((int)(record & (SEGMENT_SIZE - 1)));
+        segment.putInt(keyBytes.length).put(keyBytes).putInt(value.length).put(value);
+        _dataEnd = record + length;
+        return record;
+    }
+
+    private void writeHeader() {
+        ByteBuffer header = _segments[0];
+        header.putInt(ENTRY_COUNT, _entryCount);
+        header.putInt(USED_SLOTS, _usedSlots);
+        header.putLong(DATA_END, _dataEnd);
+    }
+
+    private void ensureOpen() {
+        if(_closed) throw new IllegalStateException("The mapped shared data is closed.");
+    }
+
+    private static long slotOffset(int slot) {
+        return HEADER_SIZE + (long)slot * SLOT_SIZE;
+    }
+
+    private ByteBuffer segment(long position) {
+        return _segments[(int)(position >>> SEGMENT_BITS)];
+    }
+
+    private long getLong(long position) {
+        return segment(position).getLong((int)(position & (SEGMENT_SIZE - 1)));
+    }
+
+    private int getInt(long position) {
+        return segment(position).getInt((int)(position & (SEGMENT_SIZE - 1)));
+    }
+
+    private void putLong(long position, long value) {
+        segment(position).putLong((int)(position & (SEGMENT_SIZE - 1)), value);
+    }
+
+    private void putInt(long position, int value) {
+        segment(position).putInt((int)(position & (SEGMENT_SIZE - 1)), value);
+    }
+
+    private static CompletableFuture<CacheResult> result(String key, byte[] value, CacheOperationStatus status) {
+        return CompletableFuture.completedFuture(new CacheResult() {
+            @Override
+            public String getKey() {
+                return key;
+            }
+
+            @Override
+            public byte[] getValue() {
+                return value;
+            }
+
+            @Override
+            public CacheOperationStatus getStatus() {
+                return status;
+            }
+        });
+    }
+
+    private static <R> CompletableFuture<R> failed(Throwable t) {
+        CompletableFuture<R> result = new CompletableFuture<>();
+        result.completeExceptionally(t);
+        return result;
+    }
+}
@@ -0,0 +1,44 @@
+/*
+ Copyright (c) 2026 by ScaleOut Software, Inc.
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+*/
+package com.scaleoutsoftware.digitaltwin.development;
+
+/**
+ * Determines how the pending messages of a digital twin are combined before they are processed. Messages are pending
+ * when they wait in the twin's mailbox while the twin is busy, and when several messages for the same twin are sent
+ * in one {@link Workbench#sendAll(String, java.util.Collection)} batch, including the messages the workbench receives
+ * while a simulation runs.
+ */
+public enum MessageCoalescing {
+    /**
+     * Every message is processed by its own
+     * {@link com.scaleoutsoftware.digitaltwin.abstractions.MessageProcessor#processMessage} call. This is the default.
+     */
+    None,
+    /**
+     * Only the newest pending message of a twin is processed; older pending messages are dropped.
+     */
+    Latest,
+    /**
+     * The pending messages of a twin are combined, oldest first, by the model's merge function and the result is
+     * processed as a single message.
+     */
+    Merge,
+    /**
+     * The pending messages of a twin are delivered together, oldest first, to
+     * {@link com.scaleoutsoftware.digitaltwin.abstractions.MessageProcessor#processMessages}.
+     */
+    Batch
+}
@@ -0,0 +1,191 @@
+/*
+ Copyright (c) 2026 by ScaleOut Software, Inc.
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+*/
+package com.scaleoutsoftware.digitaltwin.development;
+
+import com.scaleoutsoftware.digitaltwin.abstractions.DigitalTwinBase;
+import com.scaleoutsoftware.digitaltwin.abstractions.MessageCodec;
+import com.scaleoutsoftware.digitaltwin.abstractions.MessageProcessor;
+import com.scaleoutsoftware.digitaltwin.abstractions.SharedData;
+import com.scaleoutsoftware.digitaltwin.abstractions.TypedMessageProcessor;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BinaryOperator;
+import java.util.function.Supplier;
+
+/**
+ * Everything the message path needs to know about a model, resolved once when the model is added.
+ */
+class ModelMetadata {
+    private final String                                    _name;
+    private final Class<? extends DigitalTwinBase>          _twinType;
+    private final MessageProcessor                          _messageProcessor;
+    private final SimulationScheduler                       _scheduler;
+    private final ConcurrentHashMap<String, TwinProxy>      _instances;
+    private final ConcurrentHashMap<String, byte[]>         _sharedData;
+    private final SharedData                                _sharedDataWrapper;
+    private final ConcurrentHashMap<String, TwinMailbox>    _mailboxes = new ConcurrentHashMap<>();
+    private final MessageCodec<?>                           _codec;
+    private volatile Supplier<? extends DigitalTwinBase>    _factory;
+    private volatile MessageCoalescing                      _coalescing = MessageCoalescing.None;
+    private volatile BinaryOperator<byte[]>                 _merger;
+
+    ModelMetadata(String name,
+                  Class<? extends DigitalTwinBase> twinType,
+                  MessageProcessor messageProcessor,
+                  SimulationScheduler scheduler,
+                  ConcurrentHashMap<String, TwinProxy> instances,
+                  ConcurrentHashMap<String, byte[]> sharedData,
+                  Supplier<? extends DigitalTwinBase> factory) {
+        _name               = name;
+        _twinType           = twinType;
+        _messageProcessor   = messageProcessor;
+        _scheduler          = scheduler;
+        _instances          = instances;
+        _sharedData         = sharedData;
+        _sharedDataWrapper  = new WorkbenchSharedData(sharedData);
+        _factory            = factory;
+        _codec              = resolveCodec(messageProcessor);
+    }
+
+    String getName() {
+        return _name;
+    }
+
+    Class<? extends DigitalTwinBase> getTwinType() {
+        return _twinType;
+    }
+
+    MessageProcessor getMessageProcessor() {
+        return _messageProcessor;
+    }
+
+    // null for real-time models
+    SimulationScheduler getScheduler() {
+        return _scheduler;
+    }
+
+    ConcurrentHashMap<String, TwinProxy> getInstances() {
+        return _instances;
+    }
+
+    ConcurrentHashMap<String, byte[]> getSharedData() {
+        return _sharedData;
+    }
+
+    SharedData getSharedDataWrapper() {
+        return _sharedDataWrapper;
+    }
+
+    // creates a twin with the registered factory; without one, the parameterless constructor is bound to a factory
+    // on first use so that later twins are created without reflection
+    DigitalTwinBase newInstance() throws ReflectiveOperationException {
+        Supplier<? extends DigitalTwinBase> factory = _factory;
+        if(factory == null) {
+            factory     = constructorFactory(_twinType);
+            _factory    = factory;
+        }
+        DigitalTwinBase instance = factory.get();
+        if(instance == null) throw new IllegalStateException(String.format("The factory of model %s returned null.", _name));
+        return instance;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Supplier<? extends DigitalTwinBase> constructorFactory(Class<? extends DigitalTwinBase> twinType) throws ReflectiveOperationException {
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        MethodHandle constructor = lookup.unreflectConstructor(twinType.getConstructor());
+        try {
+            CallSite site = LambdaMetafactory.metafactory(lookup, "get", MethodType.methodType(Supplier.class),
+                    MethodType.methodType(Object.class), constructor, MethodType.methodType(twinType));
+            return (Supplier<? extends DigitalTwinBase>) site.getTarget().invoke();
+        } catch (Throwable e) {
+            // the twin type is not visible to the workbench's class loader; call the constructor handle instead
+            MethodHandle generic = constructor.asType(MethodType.methodType(DigitalTwinBase.class));
+            return () -> {
+                try {
+                    return (DigitalTwinBase) generic.invokeExact();
+                } catch (RuntimeException | Error t) {
+                    throw t;
+                } catch (Throwable t) {
+                    throw new IllegalStateException(t);
+                }
+            };
+        }
+    }
+
+    // null unless the model's processor is a TypedMessageProcessor
+    MessageCodec<?> getCodec() {
+        return _codec;
+    }
+
+    Object decode(byte[] message, ByteBuffer buffer) throws Exception {
+        return buffer != null ? _codec.decode(buffer) : _codec.decode(message);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static MessageCodec<?> resolveCodec(MessageProcessor messageProcessor) {
+        if(!(messageProcessor instanceof TypedMessageProcessor)) return null;
+        TypedMessageProcessor<?, Object> typed = (TypedMessageProcessor<?, Object>) messageProcessor;
+        MessageCodec<?> codec = typed.getMessageCodec();
+        return codec != null ? codec : new JsonMessageCodec<>(typed.getMessageType());
+    }
+
+    MessageCoalescing getCoalescing() {
+        return _coalescing;
+    }
+
+    // null unless the coalescing is Merge
+    BinaryOperator<byte[]> getMerger() {
+        return _merger;
+    }
+
+    void setCoalescing(MessageCoalescing coalescing, BinaryOperator<byte[]> merger) {
+        _merger     = merger;
+        _coalescing = coalescing;
+    }
+
+    // the twin's current mailbox; a retired mailbox still in the map is replaced
+    TwinMailbox getMailbox(String id) {
+        TwinMailbox mailbox = _mailboxes.get(id);
+        while(mailbox == null || mailbox.isRetired()) {
+            if(mailbox != null) _mailboxes.remove(id, mailbox);
+            TwinMailbox created = new TwinMailbox();
+            mailbox = _mailboxes.putIfAbsent(id, created);
+            if(mailbox == null) mailbox = created;
+        }
+        return mailbox;
+    }
+
+    // retires the mailbox if no thread owns it and drops it from the map; returns false if it is still in use
+    boolean retireMailbox(String id, TwinMailbox mailbox) {
+        if(!mailbox.tryRetire()) return false;
+        _mailboxes.remove(id, mailbox);
+        return true;
+    }
+
+    TwinMailbox peekMailbox(String id) {
+        return _mailboxes.get(id);
+    }
+
+    int getMailboxCount() {
+        return _mailboxes.size();
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ Copyright (c) 2026 by ScaleOut Software, Inc.
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+*/
+package com.scaleoutsoftware.digitaltwin.development;
+
+/**
+ * The results of a {@link TelemetryReplay}. Latency is the time a single {@link Workbench#send} call took; percentiles
+ * are accurate to within 1/16 of the value.
+ */
+public class ReplayMetrics {
+    private final long      _messages;
+    private final long      _notHandled;
+    private final long      _elapsedNanos;
+    private final double    _meanLatencyNanos;
+    private final long      _medianLatencyNanos;
+    private final long      _p99LatencyNanos;
+    private final long      _maxLatencyNanos;
+
+    ReplayMetrics(long messages, long notHandled, long elapsedNanos, LatencyHistogram latencies) {
+        _messages           = messages;
+        _notHandled         = notHandled;
+        _elapsedNanos       = elapsedNanos;
+        _meanLatencyNanos   = latencies.getMean();
+        _medianLatencyNanos = latencies.getPercentile(0.5);
+        _p99LatencyNanos    = latencies.getPercentile(0.99);
+        _maxLatencyNanos    = latencies.getMax();
+    }
+
+    /**
+     * Retrieve the number of messages replayed.
+     * @return the number of messages.
+     */
+    public long getMessages() {
+        return _messages;
+    }
+
+    /**
+     * Retrieve the number of messages the workbench did not handle, including messages for models that do not exist.
+     * @return the number of messages that were not handled.
+     */
+    public long getNotHandled() {
+        return _notHandled;
+    }
+
+    /**
+     * Retrieve the time the replay took, in nanoseconds.
+     * @return the elapsed time.
+     */
+    public long getElapsedNanos() {
+        return _elapsedNanos;
+    }
+
+    /**
+     * Retrieve the number of messages replayed per second.
+     * @return the replay throughput.
+     */
+    public double getMessagesPerSecond() {
+        return _elapsedNanos == 0 ? 0 : _messages * 1_000_000_000d / _elapsedNanos;
+    }
+
+    /**
+     * Retrieve the mean send latency, in nanoseconds.
+     * @return the mean latency.
+     */
+    public double getMeanLatencyNanos() {
+        return _meanLatencyNanos;
+    }
+
+    /**
+     * Retrieve the median send latency, in nanoseconds.
+     * @return the median latency.
+     */
+    public long getMedianLatencyNanos() {
+        return _medianLatencyNanos;
+    }
+
+    /**
+     * Retrieve the 99th percentile send latency, in nanoseconds.
+     * @return the 99th percentile latency.
+     */
+    public long getP99LatencyNanos() {
+        return _p99LatencyNanos;
+    }
+
+    /**
+     * Retrieve the maximum send latency, in nanoseconds.
+     * @return the maximum latency.
+     */
+    public long getMaxLatencyNanos() {
+        return _maxLatencyNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d messages (%d not handled) in %.3f s, %.0f messages/s, latency mean %.1f us, p50 %.1f us, p99 %.1f us, max %.1f us",
+                _messages, _notHandled, _elapsedNanos / 1e9, getMessagesPerSecond(), _meanLatencyNanos / 1e3,
+                _medianLatencyNanos / 1e3, _p99LatencyNanos / 1e3, _maxLatencyNanos / 1e3);
+    }
+}
@@ -0,0 +1,38 @@
+/*
+ Copyright (c) 2026 by ScaleOut Software, Inc.
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+*/
+package com.scaleoutsoftware.digitaltwin.development;
+
+/**
+ * Determines when the shared data writes that digital twins make during a simulation step become visible.
+ */
+public enum SharedDataIsolation {
+    /**
+     * Shared data writes take effect immediately and are visible to twins running concurrently on other simulation
+     * workers. This is the default.
+     */
+    None,
+    /**
+     * Twins read the shared data as it was at the start of each simulation step, and reads need no synchronization.
+     * Their writes are buffered by the thread that made them and published together once every model has completed
+     * the step, ordered by model and twin id, so writes to the same key by different twins resolve the same way on
+     * every run. The writes of a twin made on one thread keep their order; a twin that writes the same key from
+     * several threads in one step, such as from a timer and from a queued message, gets those writes in an
+     * unspecified order. Writes become visible at the next step; until then a twin does not see its own writes, and
+     * the results of {@code remove} and {@code removeAll} describe the shared data at the start of the step. The
+     * atomic operations cannot be isolated this way and fail with {@link UnsupportedOperationException} during a step.
+     */
+    StepSnapshot
+}
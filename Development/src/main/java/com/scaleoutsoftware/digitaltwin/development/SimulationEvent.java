@@ -24,6 +24,10 @@ abstract class SimulationEvent implements Comparable<SimulationEvent> {
     protected String    _id;
     protected long      _priority;
     protected long      _nextSimulationTime;
+    // the event's position in its worker's event queue, or -1 if the event is not queued
+    private int         _queueIndex = -1;
+    // processing time accumulated since the scheduler last measured its worker's load
+    private long        _costNanos;
 
     SimulationEvent(String model, String id, long priority) {
         _model      = model;
@@ -55,6 +59,26 @@ abstract class SimulationEvent implements Comparable<SimulationEvent> {
 
     String getModel() {return _model;}
 
+    int getQueueIndex() {
+        return _queueIndex;
+    }
+
+    void setQueueIndex(int queueIndex) {
+        _queueIndex = queueIndex;
+    }
+
+    long getCostNanos() {
+        return _costNanos;
+    }
+
+    void addCostNanos(long nanos) {
+        _costNanos += nanos;
+    }
+
+    void resetCostNanos() {
+        _costNanos = 0L;
+    }
+
     void setNextSimulationTime(long nextSimulationTime) {
         _nextSimulationTime = nextSimulationTime;
         handleResetNextSimulationTime();
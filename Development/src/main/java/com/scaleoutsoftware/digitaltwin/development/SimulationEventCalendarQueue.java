@@ -0,0 +1,268 @@
+/*
+ Copyright (c) 2026 by ScaleOut Software, Inc.
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+*/
+package com.scaleoutsoftware.digitaltwin.development;
+
+import java.util.Arrays;
+
+/**
+ * A {@link SimulationEventQueue} that buckets events by simulation time slice (a calendar queue, or single-level
+ * timing wheel). Each bucket holds the events due at one simulation step and every event tracks its position in its
+ * bucket, so adding or removing an event that is due within the wheel's horizon costs O(1) regardless of the number
+ * of queued events. Events due beyond the horizon,
+ * including indefinitely delayed events, are kept in an overflow heap and move into the wheel as the simulation time
+ * approaches them.
+ */
+class SimulationEventCalendarQueue implements SimulationEventQueue {
+    private static final int                    NUM_BUCKETS = 512;
+    private static final int                    BUCKET_MASK = NUM_BUCKETS - 1;
+    private final Bucket[]                      _buckets    = new Bucket[NUM_BUCKETS];
+    // events due at or before the current time slice
+    private final Bucket                        _ready      = new Bucket();
+    private final SimulationEventHeapQueue      _overflow   = new SimulationEventHeapQueue();
+    private long                                _origin;
+    // the bucket width (simulation interval); zero until the first simulation step, every event is held in the
+    // overflow heap until then
+    private long                                _width;
+    private long                                _currentTime;
+    private long                                _currentSlot;
+    private int                                 _size;
+
+    SimulationEventCalendarQueue() {
+        for(int i = 0; i < NUM_BUCKETS; i++) {
+            _buckets[i] = new Bucket();
+        }
+    }
+
+    @Override
+    public void add(SimulationEvent event) {
+        place(event);
+        _size++;
+    }
+
+    @Override
+    public boolean remove(SimulationEvent event) {
+        boolean removed;
+        if(_width == 0) {
+            removed = _overflow.remove(event);
+        } else {
+            long slot = slotOf(event.getPriority());
+            if(slot <= _currentSlot) {
+                removed = _ready.remove(event);
+            } else if(slot - _currentSlot < NUM_BUCKETS) {
+                removed = _buckets[(int)(slot & BUCKET_MASK)].remove(event);
+            } else {
+                removed = _overflow.remove(event);
+            }
+        }
+        if(removed) _size--;
+        return removed;
+    }
+
+    @Override
+    public SimulationEvent peek() {
+        if(_width == 0) {
+            return _overflow.peek();
+        }
+        if(_ready.size() > 0) {
+            return _ready.min();
+        }
+        for(long slot = _currentSlot + 1; slot - _currentSlot < NUM_BUCKETS; slot++) {
+            Bucket bucket = _buckets[(int)(slot & BUCKET_MASK)];
+            if(bucket.size() > 0) {
+                return bucket.min();
+            }
+        }
+        return _overflow.peek();
+    }
+
+    @Override
+    public SimulationEvent poll() {
+        SimulationEvent next = peek();
+        if(next != null) {
+            remove(next);
+        }
+        return next;
+    }
+
+    @Override
+    public SimulationEvent pollDue(long time) {
+        if(_width == 0) {
+            SimulationEvent next = _overflow.peek();
+            if(next != null && next.getPriority() <= time) {
+                _size--;
+                return _overflow.poll();
+            }
+            return null;
+        }
+        if(time != _currentTime) {
+            advance(time, _width);
+        }
+        SimulationEvent next = _ready.pop();
+        if(next != null) _size--;
+        return next;
+    }
+
+    @Override
+    public void advance(long time, long interval) {
+        if(interval <= 0) {
+            return;
+        }
+        if(_width != interval || Math.floorMod(time - _origin, interval) != 0 || time < _currentTime) {
+            // the first step, or a step that is not aligned with the current buckets (e.g. a new simulation run)
+            rebuild(time, interval);
+            return;
+        }
+        long slot = slotOf(time);
+        long last = Math.min(slot, _currentSlot + NUM_BUCKETS - 1);
+        for(long s = _currentSlot + 1; s <= last; s++) {
+            _buckets[(int)(s & BUCKET_MASK)].drainTo(_ready);
+        }
+        _currentSlot = slot;
+        _currentTime = time;
+        SimulationEvent next;
+        while((next = _overflow.peek()) != null && slotOf(next.getPriority()) - _currentSlot < NUM_BUCKETS) {
+            place(_overflow.poll());
+        }
+    }
+
+    @Override
+    public int size() {
+        return _size;
+    }
+
+    @Override
+    public void clear() {
+        for(Bucket bucket : _buckets) {
+            bucket.clear();
+        }
+        _ready.clear();
+        _overflow.clear();
+        _size = 0;
+    }
+
+    private void rebuild(long time, long interval) {
+        Bucket all = new Bucket();
+        _ready.drainTo(all);
+        for(Bucket bucket : _buckets) {
+            bucket.drainTo(all);
+        }
+        SimulationEvent next;
+        while((next = _overflow.poll()) != null) {
+            all.add(next);
+        }
+        _origin         = time;
+        _width          = interval;
+        _currentTime    = time;
+        _currentSlot    = 0L;
+        while((next = all.pop()) != null) {
+            place(next);
+        }
+    }
+
+    private void place(SimulationEvent event) {
+        if(_width == 0) {
+            _overflow.add(event);
+            return;
+        }
+        long slot = slotOf(event.getPriority());
+        if(slot <= _currentSlot) {
+            _ready.add(event);
+        } else if(slot - _currentSlot < NUM_BUCKETS) {
+            _buckets[(int)(slot & BUCKET_MASK)].add(event);
+        } else {
+            _overflow.add(event);
+        }
+    }
+
+    // the index of the first simulation step at which an event with the parameter priority is due
+    private long slotOf(long priority) {
+        return -Math.floorDiv(_origin - priority, _width);
+    }
+
+    private static final class Bucket {
+        private SimulationEvent[]   _events = new SimulationEvent[8];
+        private int                 _count;
+
+        int size() {
+            return _count;
+        }
+
+        void add(SimulationEvent event) {
+            if(_count == _events.length) {
+                _events = Arrays.copyOf(_events, _count << 1);
+            }
+            event.setQueueIndex(_count);
+            _events[_count++] = event;
+        }
+
+        SimulationEvent pop() {
+            if(_count == 0) return null;
+            SimulationEvent event = _events[--_count];
+            _events[_count] = null;
+            event.setQueueIndex(-1);
+            return event;
+        }
+
+        boolean remove(SimulationEvent event) {
+            int idx = event.getQueueIndex();
+            if(idx < 0 || idx >= _count || _events[idx] != event) {
+                return false;
+            }
+            SimulationEvent moved = _events[--_count];
+            _events[idx] = moved;
+            moved.setQueueIndex(idx);
+            _events[_count] = null;
+            event.setQueueIndex(-1);
+            return true;
+        }
+
+        SimulationEvent min() {
+            SimulationEvent min = null;
+            for(int i = 0; i < _count; i++) {
+                if(min == null || _events[i].getPriority() < min.getPriority()) {
+                    min = _events[i];
+                }
+            }
+            return min;
+        }
+
+        void drainTo(Bucket other) {
+            if(_count == 0) return;
+            if(other._count == 0) {
+                // swap the backing arrays rather than copying the events
+                SimulationEvent[] events = other._events;
+                other._events   = _events;
+                other._count    = _count;
+                _events         = events;
+                _count          = 0;
+                return;
+            }
+            for(int i = 0; i < _count; i++) {
+                other.add(_events[i]);
+                _events[i] = null;
+            }
+            _count = 0;
+        }
+
+        void clear() {
+            for(int i = 0; i < _count; i++) {
+                _events[i].setQueueIndex(-1);
+                _events[i] = null;
+            }
+            _count = 0;
+        }
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ Copyright (c) 2026 by ScaleOut Software, Inc.
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+*/
+package com.scaleoutsoftware.digitaltwin.development;
+
+import java.util.Arrays;
+
+/**
+ * A {@link SimulationEventQueue} backed by a binary heap. Each event tracks its own position in the heap, so removing
+ * an arbitrary event costs O(log n) rather than a linear scan of the queue.
+ */
+class SimulationEventHeapQueue implements SimulationEventQueue {
+    private SimulationEvent[]   _heap = new SimulationEvent[64];
+    private int                 _size;
+
+    @Override
+    public void add(SimulationEvent event) {
+        if(_size == _heap.length) {
+            _heap = Arrays.copyOf(_heap, _size << 1);
+        }
+        siftUp(_size++, event);
+    }
+
+    @Override
+    public boolean remove(SimulationEvent event) {
+        int idx = event.getQueueIndex();
+        if(idx < 0 || idx >= _size || _heap[idx] != event) {
+            return false;
+        }
+        removeAt(idx);
+        return true;
+    }
+
+    @Override
+    public SimulationEvent peek() {
+        return _size == 0 ? null : _heap[0];
+    }
+
+    @Override
+    public SimulationEvent poll() {
+        if(_size == 0) {
+            return null;
+        }
+        SimulationEvent next = _heap[0];
+        removeAt(0);
+        return next;
+    }
+
+    @Override
+    public SimulationEvent pollDue(long time) {
+        return _size != 0 && _heap[0].getPriority() <= time ? poll() : null;
+    }
+
+    @Override
+    public void advance(long time, long interval) {
+    }
+
+    @Override
+    public int size() {
+        return _size;
+    }
+
+    @Override
+    public void clear() {
+        for(int i = 0; i < _size; i++) {
+            _heap[i].setQueueIndex(-1);
+            _heap[i] = null;
+        }
+        _size = 0;
+    }
+
+    private void removeAt(int idx) {
+        _heap[idx].setQueueIndex(-1);
+        int last = --_size;
+        SimulationEvent moved = _heap[last];
+        _heap[last] = null;
+        if(idx != last) {
+            siftDown(idx, moved);
+            if(_heap[idx] == moved) {
+                siftUp(idx, moved);
+            }
+        }
+    }
+
+    private void siftUp(int idx, SimulationEvent event) {
+        while(idx > 0) {
+            int parent = (idx - 1) >>> 1;
+            SimulationEvent parentEvent = _heap[parent];
+            if(event.getPriority() >= parentEvent.getPriority()) {
+                break;
+            }
+            _heap[idx] = parentEvent;
+            parentEvent.setQueueIndex(idx);
+            idx = parent;
+        }
+        _heap[idx] = event;
+        event.setQueueIndex(idx);
+    }
+
+    private void siftDown(int idx, SimulationEvent event) {
+        int half = _size >>> 1;
+        while(idx < half) {
+            int child = (idx << 1) + 1;
+            SimulationEvent childEvent = _heap[child];
+            int right = child + 1;
+            if(right < _size && _heap[right].getPriority() < childEvent.getPriority()) {
+                childEvent = _heap[child = right];
+            }
+            if(event.getPriority() <= childEvent.getPriority()) {
+                break;
+            }
+            _heap[idx] = childEvent;
+            childEvent.setQueueIndex(idx);
+            idx = child;
+        }
+        _heap[idx] = event;
+        event.setQueueIndex(idx);
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ Copyright (c) 2026 by ScaleOut Software, Inc.
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+*/
+package com.scaleoutsoftware.digitaltwin.development;
+
+/**
+ * A time-ordered queue of the simulation events owned by a {@link SimulationWorker}.
+ */
+interface SimulationEventQueue {
+    /**
+     * Adds an event, ordered by its priority (the simulation time the event is due).
+     * @param event the event.
+     */
+    void add(SimulationEvent event);
+
+    /**
+     * Removes an event from the queue.
+     * @param event the event.
+     * @return true if the event was queued.
+     */
+    boolean remove(SimulationEvent event);
+
+    /**
+     * Retrieves, without removing, the event with the lowest priority.
+     * @return the event with the lowest priority or null if the queue is empty.
+     */
+    SimulationEvent peek();
+
+    /**
+     * Retrieves and removes the event with the lowest priority.
+     * @return the event with the lowest priority or null if the queue is empty.
+     */
+    SimulationEvent poll();
+
+    /**
+     * Retrieves and removes an event that is due at the parameter time. Events due in the same time slice are not
+     * returned in any particular order.
+     * @param time the current simulation time.
+     * @return an event with a priority less-than or equal to time, or null if no event is due.
+     */
+    SimulationEvent pollDue(long time);
+
+    /**
+     * Called at the start of each simulation step with the time and interval of the step.
+     * @param time the current simulation time.
+     * @param interval the simulation interval.
+     */
+    void advance(long time, long interval);
+
+    /**
+     * @return the number of queued events.
+     */
+    int size();
+
+    /**
+     * Removes every event from the queue.
+     */
+    void clear();
+
+    /**
+     * Creates an empty queue of the parameter type.
+     * @param type the queue type.
+     * @return a new queue.
+     */
+    static SimulationEventQueue create(SimulationEventQueueType type) {
+        switch (type) {
+            case Calendar:
+                return new SimulationEventCalendarQueue();
+            case Heap:
+            default:
+                return new SimulationEventHeapQueue();
+        }
+    }
+}
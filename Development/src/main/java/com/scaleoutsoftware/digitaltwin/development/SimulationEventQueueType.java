@@ -0,0 +1,33 @@
+/*
+ Copyright (c) 2026 by ScaleOut Software, Inc.
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+*/
+package com.scaleoutsoftware.digitaltwin.development;
+
+/**
+ * The data structure a simulation worker uses to order its pending simulation events.
+ */
+public enum SimulationEventQueueType {
+    /**
+     * A binary heap ordered by the time each event is due. Adding or removing an event costs O(log n). This is the
+     * default queue type.
+     */
+    Heap,
+    /**
+     * A calendar queue that buckets events by simulation step. Adding or removing an event that is due within the
+     * next 511 simulation steps costs O(1); events due further out are kept in an overflow heap. Recommended for
+     * large numbers of twins with short, regular delays.
+     */
+    Calendar
+}
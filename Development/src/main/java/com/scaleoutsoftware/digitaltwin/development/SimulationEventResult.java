@@ -19,4 +19,6 @@ package com.scaleoutsoftware.digitaltwin.development;
  * A simulation event result.
  */
 public abstract class SimulationEventResult {
+    // simulation events carry no result data, so every event returns this shared instance
+    static final SimulationEventResult COMPLETED = new SimulationEventResult() {};
 }
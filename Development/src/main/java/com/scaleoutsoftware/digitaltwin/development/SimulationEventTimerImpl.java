@@ -36,10 +36,12 @@ class SimulationEventTimerImpl extends SimulationEvent {
 
     @Override
     SimulationEventResult processSimulationEvent(ProcessingContext context, Date currentTime) {
-        DigitalTwinBase base = _proxy.getInstance();
-        _handler.onTimedMessage(_timerName, base, context);
-        _proxy.setInstance(base);
-        return new SimulationEventResult(){};
+        synchronized (_proxy) {
+            DigitalTwinBase base = _proxy.getInstance();
+            _handler.onTimedMessage(_timerName, base, context);
+            _proxy.setInstance(base);
+        }
+        return SimulationEventResult.COMPLETED;
     }
 
     @Override
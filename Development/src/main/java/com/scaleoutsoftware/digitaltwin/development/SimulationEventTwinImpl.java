@@ -50,7 +50,7 @@ class SimulationEventTwinImpl extends SimulationEvent {
         } catch (Exception e) {
             throw new WorkbenchException(e);
         }
-        return new SimulationEventResult(){};
+        return SimulationEventResult.COMPLETED;
     }
 
     @Override
@@ -0,0 +1,48 @@
+/*
+ Copyright (c) 2026 by ScaleOut Software, Inc.
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+*/
+package com.scaleoutsoftware.digitaltwin.development;
+
+/**
+ * Determines how a simulation model's workers are dispatched for each simulation step.
+ */
+public enum SimulationExecutionMode {
+    /**
+     * Each simulation worker is submitted to a thread pool at every simulation step and the step completes once
+     * every submitted worker has returned. This is the default mode.
+     */
+    Pooled,
+    /**
+     * Each simulation worker runs on a long-lived thread that waits on a reusable step barrier between simulation
+     * steps. Worker results are reduced as the workers arrive at the barrier, so no tasks or futures are created per
+     * step. Recommended for short simulation intervals with many workers.
+     */
+    Persistent,
+    /**
+     * Runs the simulation workers like {@link #Persistent}, and lets a worker that has finished its own due events
+     * take due events from busier workers within the same simulation step. Each event is still processed by exactly
+     * one worker, so a twin never runs concurrently with itself. Recommended when the cost of individual twins is
+     * uneven.
+     */
+    WorkStealing,
+    /**
+     * Dispatches the simulation workers like {@link #Pooled}, and runs the due events of each twin on a virtual thread
+     * so that a twin that blocks inside its simulation processor does not hold up the other twins of its worker. The
+     * events of a single twin run in order on the same thread. Virtual threads require Java 21 or later; on earlier
+     * runtimes a bounded pool of platform threads is used instead, so at most that many twins block at once (see
+     * {@link Workbench#setSimulationEventThreadLimit(int)}).
+     */
+    VirtualThreads
+}
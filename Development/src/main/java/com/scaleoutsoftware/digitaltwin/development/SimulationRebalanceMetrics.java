@@ -0,0 +1,76 @@
+/*
+ Copyright (c) 2026 by ScaleOut Software, Inc.
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+*/
+package com.scaleoutsoftware.digitaltwin.development;
+
+/**
+ * A snapshot of the adaptive rebalancing of a simulation model's twins across its simulation workers.
+ */
+public class SimulationRebalanceMetrics {
+    private final long      _rebalanceChecks;
+    private final long      _rebalances;
+    private final long      _twinsMigrated;
+    private final double    _lastImbalance;
+    private final long[]    _lastWorkerLoads;
+
+    SimulationRebalanceMetrics(long rebalanceChecks, long rebalances, long twinsMigrated, double lastImbalance, long[] lastWorkerLoads) {
+        _rebalanceChecks    = rebalanceChecks;
+        _rebalances         = rebalances;
+        _twinsMigrated      = twinsMigrated;
+        _lastImbalance      = lastImbalance;
+        _lastWorkerLoads    = lastWorkerLoads;
+    }
+
+    /**
+     * Retrieve the number of times the worker loads were measured.
+     * @return the number of rebalance checks.
+     */
+    public long getRebalanceChecks() {
+        return _rebalanceChecks;
+    }
+
+    /**
+     * Retrieve the number of rebalance checks that moved at least one twin.
+     * @return the number of rebalances.
+     */
+    public long getRebalances() {
+        return _rebalances;
+    }
+
+    /**
+     * Retrieve the total number of twins moved between simulation workers.
+     * @return the number of migrated twins.
+     */
+    public long getTwinsMigrated() {
+        return _twinsMigrated;
+    }
+
+    /**
+     * Retrieve the load of the busiest worker divided by the mean worker load at the last rebalance check.
+     * @return the last measured imbalance; 1.0 means the workers were evenly loaded.
+     */
+    public double getLastImbalance() {
+        return _lastImbalance;
+    }
+
+    /**
+     * Retrieve the processing time, in nanoseconds, of each simulation worker's twins between the last two rebalance
+     * checks.
+     * @return the worker loads indexed by worker.
+     */
+    public long[] getLastWorkerLoads() {
+        return _lastWorkerLoads.clone();
+    }
+}
@@ -23,17 +23,36 @@ import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
-class SimulationScheduler {
+class SimulationScheduler implements AutoCloseable {
     static AtomicInteger PROCESSED   = new AtomicInteger(0);
     static AtomicInteger QUEUED      = new AtomicInteger(0);
     static AtomicInteger SENT        = new AtomicInteger(0);
     private final List<SimulationWorker>                    _workers;
-    private final ExecutorService                           _simulationService;
     private final String                                    _modelName;
     private final SimulationProcessor                       _simulationProcessor;
+    private final TwinExecutionEngine                       _twinExecutionEngine;
     private final Logger                                    _logger     = LogManager.getLogger(SimulationScheduler.class);
+    // persistent mode: long-lived worker threads gated by a two-phase (start/complete) step barrier
+    private final AtomicLong                                _stepNextTime   = new AtomicLong(-1);
+    private final AtomicReference<SimulationStatus>         _stepStatus     = new AtomicReference<>(SimulationStatus.Running);
+    private final AtomicBoolean                             _stepWorkFound  = new AtomicBoolean(false);
+    private final AtomicReference<Throwable>                _stepFailure    = new AtomicReference<>();
+    private Phaser                                          _stepBarrier;
+    private ExecutorService                                 _simulationService;
+    private volatile boolean                                _shutdown;
+    // adaptive rebalancing: twins that were moved off their hashed slot, and the rebalance metrics
+    private final ConcurrentHashMap<String, Integer>        _slotOwners = new ConcurrentHashMap<>();
+    private int                                             _stepsSinceRebalance;
+    private long                                            _rebalanceChecks;
+    private long                                            _rebalances;
+    private long                                            _twinsMigrated;
+    private double                                          _lastImbalance  = 1.0;
+    private long[]                                          _lastWorkerLoads = new long[0];
     private long                                            _curSimulationTime;
     private Date                                            _simulationStartTime;
     private boolean                                         _isActive;
@@ -46,18 +65,10 @@ class SimulationScheduler {
                      int numWorkers) {
         _modelName              = modelName;
         _simulationProcessor    = modelProcessor;
+        _twinExecutionEngine    = executor;
         _workers                = new ArrayList<>(numWorkers);
-        _simulationService      = Executors.newFixedThreadPool(numWorkers, new ThreadFactory() {
-            @Override
-            public Thread newThread(Runnable r) {
-                Thread t = new Thread(r, "SimulationWorker");
-                t.setName(t.getName()+"-"+t.getId());
-                t.setDaemon(true);
-                return t;
-            }
-        });
         for(int i = 0; i < numWorkers; i++) {
-            _workers.add(new SimulationWorker(i, _modelName, _simulationProcessor, digitalTwinClass, executor, this));
+            _workers.add(new SimulationWorker(i, _modelName, _simulationProcessor, digitalTwinClass, executor, this, _workers));
         }
     }
 
@@ -83,6 +94,7 @@ class SimulationScheduler {
             return new SimulationStep(SimulationStatus.Running,_curSimulationTime);
         } else {
             ret = runSimulationStep(runSimulationEventArgs);
+            rebalance();
         }
 
         _logger.info(String.format("runSim complete in %s ms... returning next: %s", (System.currentTimeMillis()-current), ret));
@@ -108,21 +120,49 @@ class SimulationScheduler {
         _simulationStartTime = simulationStartTime;
     }
 
+    void setEventQueueType(SimulationEventQueueType type) {
+        for(SimulationWorker worker : _workers) {
+            worker.setEventQueueType(type);
+        }
+    }
 
+    synchronized SimulationRebalanceMetrics getRebalanceMetrics() {
+        return new SimulationRebalanceMetrics(_rebalanceChecks, _rebalances, _twinsMigrated, _lastImbalance, _lastWorkerLoads.clone());
+    }
+
+    @Override
+    public void close() {
+        _shutdown = true;
+        synchronized (this) {
+            if(_stepBarrier != null) {
+                // release the persistent workers from the step barrier; each one deregisters and exits
+                _stepBarrier.arriveAndDeregister();
+                _stepBarrier = null;
+            }
+            if(_simulationService != null) {
+                _simulationService.shutdown();
+                _simulationService = null;
+            }
+        }
+    }
 
     // -------------- private methods ----------------
     private SimulationStep runSimulationStep(SimulationStepArgs args) {
+        SimulationExecutionMode mode = _twinExecutionEngine.getSimulationExecutionMode();
+        if(mode == SimulationExecutionMode.Persistent || mode == SimulationExecutionMode.WorkStealing) {
+            return runPersistentSimulationStep(args);
+        }
         long currentTimeMs = System.currentTimeMillis();
+        ExecutorService simulationService = getSimulationService();
         List<Future<SimulationStep>> futures = new LinkedList<>();
         for(SimulationWorker worker : _workers) {
             worker.reset(args);
-            futures.add(_simulationService.submit(worker));
+            futures.add(simulationService.submit(worker));
         }
 
         SimulationStatus status = SimulationStatus.Running;
         boolean workFound = false;
         long next = -1;
-        long cur = Long.MAX_VALUE;
         for(Future<SimulationStep> f : futures) {
             try {
                 SimulationStep result = f.get();
@@ -132,13 +172,7 @@ class SimulationScheduler {
                 if(result.getStatus() != SimulationStatus.Running) {
                     status = result.getStatus();
                 }
-                cur = result.getTime();
-                if (cur != -1 && cur < next) {
-                    _logger.info(String.format("future return is lower than next... cur: %s next: %s", cur, next));
-                    next = cur;
-                } else if (next == -1 && cur > -1) {
-                    next = cur;
-                }
+                next = mergeNextTime(next, result.getTime());
             } catch (InterruptedException e) {
                 throw new RuntimeException(e);
             } catch (ExecutionException e) {
@@ -151,6 +185,145 @@ class SimulationScheduler {
         return new SimulationStep(status, next);
     }
 
+    // runs between simulation steps: measures the load of each worker and moves twins from the busiest worker to the
+    // least busy worker when the imbalance exceeds the configured threshold
+    private void rebalance() {
+        int interval = _twinExecutionEngine.getRebalanceInterval();
+        if(interval <= 0 || _workers.size() < 2 || ++_stepsSinceRebalance < interval) {
+            return;
+        }
+        _stepsSinceRebalance = 0;
+        long[] loads = new long[_workers.size()];
+        long total = 0L;
+        int busiest = 0;
+        int idlest = 0;
+        for(int i = 0; i < loads.length; i++) {
+            loads[i] = _workers.get(i).measureLoad();
+            total += loads[i];
+            if(loads[i] > loads[busiest]) busiest = i;
+            if(loads[i] < loads[idlest]) idlest = i;
+        }
+        double mean = (double)total / loads.length;
+        double imbalance = mean > 0 ? loads[busiest] / mean : 1.0;
+        int migrated = 0;
+        if(imbalance > _twinExecutionEngine.getRebalanceThreshold()) {
+            SimulationWorker target = _workers.get(idlest);
+            for(SimulationEvent event : _workers.get(busiest).removeTwinsForMigration((loads[busiest] - loads[idlest]) / 2)) {
+                if(hashSlot(event.getId()) == idlest) {
+                    _slotOwners.remove(event.getId());
+                } else {
+                    _slotOwners.put(event.getId(), idlest);
+                }
+                target.addTwinToQueue(event);
+                migrated++;
+            }
+        }
+        for(SimulationWorker worker : _workers) {
+            worker.resetCosts();
+        }
+        synchronized (this) {
+            _rebalanceChecks++;
+            if(migrated > 0) {
+                _rebalances++;
+                _twinsMigrated += migrated;
+            }
+            _lastImbalance      = imbalance;
+            _lastWorkerLoads    = loads;
+        }
+        if(migrated > 0) {
+            _logger.info("Rebalanced {}: moved {} twins from worker {} to worker {} (imbalance {}).", _modelName, migrated, busiest, idlest, imbalance);
+        }
+    }
+
+    private SimulationStep runPersistentSimulationStep(SimulationStepArgs args) {
+        long currentTimeMs = System.currentTimeMillis();
+        Phaser barrier = startPersistentWorkers();
+        _stepNextTime.set(-1);
+        _stepStatus.set(SimulationStatus.Running);
+        _stepWorkFound.set(false);
+        _stepFailure.set(null);
+        for(SimulationWorker worker : _workers) {
+            worker.reset(args);
+        }
+        // the first phase releases the workers, the second completes once every worker has reduced its result
+        barrier.arriveAndAwaitAdvance();
+        barrier.arriveAndAwaitAdvance();
+
+        Throwable failure = _stepFailure.get();
+        if(failure != null) {
+            throw new RuntimeException(failure);
+        }
+        long next = _stepNextTime.get();
+        SimulationStatus status = _stepStatus.get();
+        _logger.info(String.format("Simulation step complete in %s ms... returning next: %s", (System.currentTimeMillis()-currentTimeMs), next));
+
+        if(_stepWorkFound.get() && status == SimulationStatus.NoRemainingWork) status = SimulationStatus.Running;
+        return new SimulationStep(status, next);
+    }
+
+    // the workbench's shared simulation pool if one is configured, otherwise a pool owned by this model
+    private synchronized ExecutorService getSimulationService() {
+        ExecutorService shared = _twinExecutionEngine.getSharedSimulationService();
+        if(shared != null) {
+            return shared;
+        }
+        if(_simulationService == null) {
+            _simulationService = Executors.newFixedThreadPool(_workers.size(), SimulationScheduler::newWorkerThread);
+        }
+        return _simulationService;
+    }
+
+    private synchronized Phaser startPersistentWorkers() {
+        if(_stepBarrier == null) {
+            // one party per worker plus the scheduler, which drives each step
+            Phaser barrier = new Phaser(_workers.size() + 1);
+            for(SimulationWorker worker : _workers) {
+                newWorkerThread(() -> runPersistentWorker(worker, barrier)).start();
+            }
+            _stepBarrier = barrier;
+        }
+        return _stepBarrier;
+    }
+
+    private void runPersistentWorker(SimulationWorker worker, Phaser barrier) {
+        while(true) {
+            barrier.arriveAndAwaitAdvance();
+            if(_shutdown) {
+                barrier.arriveAndDeregister();
+                return;
+            }
+            try {
+                SimulationStep result = worker.call();
+                if(result.getStatus() == SimulationStatus.Running) {
+                    _stepWorkFound.set(true);
+                } else {
+                    _stepStatus.compareAndSet(SimulationStatus.Running, result.getStatus());
+                }
+                _stepNextTime.accumulateAndGet(result.getTime(), SimulationScheduler::mergeNextTime);
+            } catch (Throwable t) {
+                _stepFailure.compareAndSet(null, t);
+            }
+            barrier.arriveAndAwaitAdvance();
+        }
+    }
+
+    // the lowest next simulation time reported by a worker, where -1 means no time has been reported yet
+    private static long mergeNextTime(long next, long cur) {
+        if(cur != -1 && cur < next) {
+            return cur;
+        } else if(next == -1 && cur > -1) {
+            return cur;
+        }
+        return next;
+    }
+
+    static Thread newWorkerThread(Runnable r) {
+        Thread t = new Thread(r, "SimulationWorker");
+        t.setName(t.getName()+"-"+t.getId());
+        t.setDaemon(true);
+        return t;
+    }
+
     void addInstance(TwinProxy proxy) {
         SimulationWorker worker = _workers.get(findSlotId(proxy.getInstance().getId()));
         worker.addTwinToQueue(proxy);
@@ -171,6 +344,11 @@ class SimulationScheduler {
     }
 
     private int findSlotId(String id) {
+        Integer owner = _slotOwners.get(id);
+        return owner != null ? owner : hashSlot(id);
+    }
+
+    private int hashSlot(String id) {
         return (int)((Constants.getHash(id.getBytes(StandardCharsets.UTF_8))) % (long)_workers.size());
     }
 
@@ -18,12 +18,18 @@ package com.scaleoutsoftware.digitaltwin.development;
 class SimulationStepArgs {
     private long                        _curSimulationTime;
     private long                        _interval;
+    private long                        _windowEnd;
     private WorkbenchSimulationFlags    _simulationFlags;
 
     SimulationStepArgs(long currentSimulationTime, long interval, WorkbenchSimulationFlags flags) {
+        this(currentSimulationTime, interval, flags, currentSimulationTime + interval);
+    }
+
+    SimulationStepArgs(long currentSimulationTime, long interval, WorkbenchSimulationFlags flags, long windowEnd) {
         _curSimulationTime  = currentSimulationTime;
         _interval           = interval;
         _simulationFlags    = flags;
+        _windowEnd          = windowEnd;
     }
 
     long getCurSimulationTime() {
@@ -34,6 +40,11 @@ class SimulationStepArgs {
         return _interval;
     }
 
+    // the exclusive end of the lookahead window; every time slice before it is run in this step
+    long getWindowEnd() {
+        return _windowEnd;
+    }
+
     WorkbenchSimulationFlags getSimulationFlags() {
         return this._simulationFlags;
     }
@@ -23,20 +23,43 @@ import java.time.Duration;
 import java.util.*;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Predicate;
 
 class SimulationWorker implements Callable<SimulationStep> {
     private final Logger                                        _logger = LogManager.getLogger(SimulationWorker.class);
-    private final PriorityQueue<SimulationEvent>                _timeOrderedQueue = new PriorityQueue<>();
+    private SimulationEventQueue                                _timeOrderedQueue;
     private final ConcurrentHashMap<String, SimulationEvent>    _timers = new ConcurrentHashMap<>();
     private final ConcurrentHashMap<String, SimulationEvent>    _events = new ConcurrentHashMap<>();
+    // the number of timers of each twin, so migration can skip twins with timers without scanning _timers
+    private final ConcurrentHashMap<String, Integer>            _timerCounts = new ConcurrentHashMap<>();
     private final int                                           _slotId;
     private final String                                        _modelName;
     private final SimulationProcessor                           _simulationProcessor;
     private final TwinExecutionEngine                           _twinExecutionEngine;
     private final SimulationScheduler                           _simulationScheduler;
+    private final List<SimulationWorker>                        _peers;
+    // work stealing: the events due in the current step, claimed by index by this worker and its peers
+    private final AtomicInteger                                 _dueClaimed = new AtomicInteger(0);
+    private SimulationEvent[]                                   _dueEvents = new SimulationEvent[16];
+    private volatile int                                        _dueCount;
+    private final StepTotals                                    _stepTotals = new StepTotals();
+    // reused across simulation steps so that the step loop does not allocate per event
+    private final WorkbenchSimulationController                 _simulationController;
+    private final WorkbenchProcessingContext                    _processingContext;
+    private final Date                                          _currentTime = new Date();
+    private final SharedData                                    _modelSharedData;
+    // virtual threads mode: the controller, context, time and totals of idle event tasks, reused across steps
+    private final ConcurrentLinkedQueue<EventTaskState>         _eventTaskStates = new ConcurrentLinkedQueue<>();
+    private SimulationEvent[]                                   _buffer = new SimulationEvent[16];
     private long                                                _curSimulationTime;
     private long                                                _simulationInterval;
+    // the lookahead window [_windowStart, _windowEnd) of the current step; _curSimulationTime is the current time slice
+    private long                                                _windowStart;
+    private long                                                _windowEnd;
     private long                                                _nextSimulationTime;
     private boolean                                             _running;
 
@@ -45,47 +68,115 @@ class SimulationWorker implements Callable<SimulationStep> {
                             SimulationProcessor modelProcessor,
                             Class<? extends DigitalTwinBase> digitalTwinClass,
                             TwinExecutionEngine engine,
-                            SimulationScheduler scheduler) {
+                            SimulationScheduler scheduler,
+                            List<SimulationWorker> peers) {
         _slotId                 = slotId;
         _modelName              = model;
         _simulationProcessor    = modelProcessor;
         _twinExecutionEngine    = engine;
         _simulationScheduler    = scheduler;
+        _peers                  = peers;
+        _timeOrderedQueue       = SimulationEventQueue.create(engine.getSimulationEventQueueType());
+        _simulationController   = new WorkbenchSimulationController(engine, scheduler);
+        _processingContext      = new WorkbenchProcessingContext(engine, _simulationController);
+        _modelSharedData        = engine.getModelSharedData(model);
     }
 
     public void reset(SimulationStepArgs runSimulationEventArgs) {
         _curSimulationTime  = runSimulationEventArgs.getCurSimulationTime();
         _simulationInterval = runSimulationEventArgs.getIterationSize();
-        _logger.info(String.format("Worker reset... cur: %s interval: %s", _curSimulationTime, _simulationInterval));
+        _windowStart        = _curSimulationTime;
+        _windowEnd          = runSimulationEventArgs.getWindowEnd();
+        _dueCount           = 0;
+        _dueClaimed.set(0);
+        synchronized (this) {
+            _timeOrderedQueue.advance(_curSimulationTime, _simulationInterval);
+        }
+        _logger.info("Worker reset... cur: {} interval: {}", _curSimulationTime, _simulationInterval);
+    }
+
+    synchronized void setEventQueueType(SimulationEventQueueType type) {
+        SimulationEventQueue queue = SimulationEventQueue.create(type);
+        SimulationEvent next;
+        while((next = _timeOrderedQueue.poll()) != null) {
+            queue.add(next);
+        }
+        _timeOrderedQueue = queue;
+    }
+
+    // the processing time of this worker's twins since the last call to resetCosts
+    long measureLoad() {
+        long load = 0L;
+        for(SimulationEvent event : _events.values()) {
+            load += event.getCostNanos();
+        }
+        return load;
+    }
+
+    void resetCosts() {
+        for(SimulationEvent event : _events.values()) {
+            event.resetCostNanos();
+        }
+    }
+
+    // removes queued twins with a combined cost of up to targetCost so they can be moved to another worker; twins
+    // with timers stay with this worker since the timers are tracked here
+    synchronized List<SimulationEvent> removeTwinsForMigration(long targetCost) {
+        List<SimulationEvent> removed = new ArrayList<>();
+        long removedCost = 0L;
+        for(Map.Entry<String, SimulationEvent> entry : _events.entrySet()) {
+            SimulationEvent event = entry.getValue();
+            long cost = event.getCostNanos();
+            if(cost == 0L || removedCost + cost > targetCost) {
+                continue;
+            }
+            if(!(event instanceof SimulationEventTwinImpl) || event.getProxyState() != ProxyState.Active || hasTimers(event.getId())) {
+                continue;
+            }
+            if(_timeOrderedQueue.remove(event)) {
+                _events.remove(entry.getKey());
+                removed.add(event);
+                removedCost += cost;
+            }
+        }
+        return removed;
+    }
+
+    private boolean hasTimers(String id) {
+        return _timerCounts.containsKey(id);
     }
 
     public void shutdown() {
         _timeOrderedQueue.clear();
         _events.clear();
         _timers.clear();
+        _timerCounts.clear();
     }
 
     public void addTwinToQueue(TwinProxy proxy) {
-        SimulationEvent event = new SimulationEventTwinImpl(_curSimulationTime, proxy, _simulationProcessor, new WorkbenchSharedData(_twinExecutionEngine.getGlobalSharedData()), new WorkbenchSharedData(_twinExecutionEngine.getModelData(_modelName)));
-        _timeOrderedQueue.add(event);
+        SimulationEvent event = new SimulationEventTwinImpl(_curSimulationTime, proxy, _simulationProcessor, _twinExecutionEngine.getGlobalSharedDataWrapper(), _modelSharedData);
+        enqueue(event);
         _events.put(String.format("%s%s",event.getModel(),event.getId()), event);
     }
 
     public void addTwinToQueue(SimulationEvent event) {
-        _timeOrderedQueue.add(event);
+        enqueue(event);
         _events.put(String.format("%s%s",event.getModel(),event.getId()), event);
     }
 
     public void addTimerToQueue(TwinProxy proxy, String modelName, String id, String timerName, TimerType type, Duration interval, TimerHandler handler) {
         SimulationEvent event = new SimulationEventTimerImpl(modelName, id, interval.toMillis(), timerName, proxy, handler);
-        _timers.put(timerName, event);
-        _timeOrderedQueue.add(event);
+        if(_timers.put(String.format("%s%s%s",modelName, id,timerName), event) == null) {
+            _timerCounts.merge(id, 1, Integer::sum);
+        }
+        enqueue(event);
         _events.put(String.format("%s%s",event.getModel(),event.getId()), event);
     }
 
     public void stopTimer(String model, String id, String timerName) {
         SimulationEvent event = _timers.remove(String.format("%s%s%s",model, id,timerName));
         event.setProxyState(ProxyState.Removed);
+        _timerCounts.computeIfPresent(id, (k, count) -> count == 1 ? null : count - 1);
         _events.remove(String.format("%s%s",event.getModel(),event.getId()));
     }
 
@@ -99,9 +190,11 @@ class SimulationWorker implements Callable<SimulationStep> {
         SimulationEvent event = _events.remove(String.format("%s%s",model,id));
         if(event == null) {
             TwinProxy proxy = _twinExecutionEngine.getTwinProxy(model, id);
-            event = new SimulationEventTwinImpl(_curSimulationTime, proxy, _simulationProcessor, new WorkbenchSharedData(_twinExecutionEngine.getGlobalSharedData()), new WorkbenchSharedData(_twinExecutionEngine.getModelData(_modelName)));
+            event = new SimulationEventTwinImpl(_curSimulationTime, proxy, _simulationProcessor, _twinExecutionEngine.getGlobalSharedDataWrapper(), _modelSharedData);
         } else {
-            _timeOrderedQueue.remove(event);
+            synchronized (this) {
+                _timeOrderedQueue.remove(event);
+            }
         }
         WorkbenchSimulationController simulationController = new WorkbenchSimulationController(_twinExecutionEngine, _simulationScheduler);
         WorkbenchProcessingContext processingContext = new WorkbenchProcessingContext(_twinExecutionEngine, simulationController);
@@ -127,105 +220,332 @@ class SimulationWorker implements Callable<SimulationStep> {
         }
         if(!simulationController.deleted() && !(event.getProxyState() == ProxyState.Removed)) {
             _events.put(String.format("%s%s",model,id), event);
-            _timeOrderedQueue.add(event);
+            enqueue(event);
         }
     }
 
+    synchronized void enqueue(SimulationEvent event) {
+        _timeOrderedQueue.add(event);
+    }
+
+    private synchronized SimulationEvent pollDue(long time) {
+        return _timeOrderedQueue.pollDue(time);
+    }
+
     @Override
     public SimulationStep call() throws Exception {
+        SimulationExecutionMode mode = _twinExecutionEngine.getSimulationExecutionMode();
+        if(mode == SimulationExecutionMode.WorkStealing) {
+            return callWorkStealing();
+        } else if(mode == SimulationExecutionMode.VirtualThreads) {
+            return callVirtualThreads();
+        }
         synchronized (this) {
             _running = true;
         }
-        SimulationTime simulationTime = new SimulationTime(_curSimulationTime, _simulationInterval);
-        long lowestNextSimulationTime = Long.MAX_VALUE;
-        long nextQueueTm = Long.MAX_VALUE;
-        boolean keepProcessing = true;
-        boolean delayed = false;
-        boolean addToBuffer = true;
-        List<SimulationEvent> buffer = new LinkedList<>();
-        WorkbenchSimulationController simulationController = new WorkbenchSimulationController(_twinExecutionEngine, _simulationScheduler);
-        WorkbenchProcessingContext processingContext = new WorkbenchProcessingContext(_twinExecutionEngine, simulationController);
-        Date currentTime = new Date();
-        currentTime.setTime(_curSimulationTime);
-        int processed = 0;
+        _simulationController.resetStatus();
+        StepTotals totals = _stepTotals;
+        totals.reset();
+        boolean measureCost = _twinExecutionEngine.getRebalanceInterval() > 0;
+        // a lookahead window runs each of its time slices back to back without synchronizing with the other workers
         do {
+            runTimeSlice(totals, measureCost);
+        } while(nextTimeSlice());
+        totals.status = _simulationController.getSimulationStatus();
+        return completeStep(totals);
+    }
+
+    // processes the events due at the current time slice; rescheduled events are re-queued once the slice is complete
+    private void runTimeSlice(StepTotals totals, boolean measureCost) {
+        long nextStepTime = _curSimulationTime + _simulationInterval;
+        boolean addToBuffer;
+        int buffered = 0;
+        WorkbenchSimulationController simulationController = _simulationController;
+        WorkbenchProcessingContext processingContext = _processingContext;
+        Date currentTime = _currentTime;
+        currentTime.setTime(_curSimulationTime);
+        SimulationEvent next;
+        while((next = pollDue(_curSimulationTime)) != null) {
+            if(next.getProxyState() != ProxyState.Active) {
+                continue;
+            }
             addToBuffer = true;
-            SimulationEvent next = _timeOrderedQueue.poll();
-            if(next != null) {
-                if(next.getProxyState() == ProxyState.Active) {
-                    processed++;
-                    nextQueueTm = next.getPriority();
-                    if(next.getPriority() <= simulationTime.getCurrentSimulationTime()) {
-                        simulationController.reset(_modelName, next.getId());
-                        processingContext.reset(_modelName, next.getId(), null);
-                        ProcessingResult result = ProcessingResult.NoUpdate;
-                        try {
-                            next.processSimulationEvent(processingContext, currentTime);
-                        } catch (Exception e) {
-                            _logger.error("simulation processor threw an exception.", e);
-                            result = ProcessingResult.NoUpdate;
-                        }
-                        if(simulationController.delayRequested()) {
-                            delayed = true;
-                            long delay = simulationController.getRequestedDelay();
-                            if(delay == 0x0000e677d21fdbffL) {
-                                next.setPriority(simulationController.getRequestedDelay());
-                                next.setNextSimulationTime(simulationController.getRequestedDelay());
-                            } else if (delay == 0L) {
-                                next.setPriority(_curSimulationTime);
-                                next.setNextSimulationTime(_curSimulationTime);
-                                addToBuffer = false;
-                            } else {
-                                next.setPriority(simulationTime.getCurrentSimulationTime() + simulationController.getRequestedDelay());
-                                next.setNextSimulationTime(simulationTime.getCurrentSimulationTime() + simulationController.getRequestedDelay());
-                            }
-                        } else {
-                            next.setPriority(simulationTime.getNextSimulationTime());
-                            next.setNextSimulationTime(simulationTime.getNextSimulationTime());
-                        }
-                        if(lowestNextSimulationTime > next.getPriority()) {
-                            lowestNextSimulationTime = next.getPriority();
-                        }
-                        if(simulationController.deleted()) {
-                            result = ProcessingResult.NoUpdate;
-                        }
-                        if(!simulationController.enqueue()) {
-                            // the user called "runThisInstance" -- the work item has already been re-enqueued for the
-                            // current time slice.
-                            addToBuffer = false;
-                        }
-                    } else {
-                        synchronized (this) {
-                            _running = false;
-                        }
-                        keepProcessing = false;
-                    }
-                    if(!simulationController.deleted() && addToBuffer && !(next.getProxyState() == ProxyState.Removed)) {
-                        buffer.add(next);
-                    }
+            totals.processed++;
+            simulationController.reset(_modelName, next.getId());
+            processingContext.reset(_modelName, next.getId(), null);
+            long begin = measureCost ? System.nanoTime() : 0L;
+            try {
+                next.processSimulationEvent(processingContext, currentTime);
+            } catch (Exception e) {
+                _logger.error("simulation processor threw an exception.", e);
+            }
+            if(measureCost) {
+                next.addCostNanos(System.nanoTime() - begin);
+            }
+            if(simulationController.delayRequested()) {
+                totals.delayed = true;
+                long delay = simulationController.getRequestedDelay();
+                if(delay == 0x0000e677d21fdbffL) {
+                    next.setPriority(delay);
+                    next.setNextSimulationTime(delay);
+                } else if (delay == 0L) {
+                    next.setPriority(_curSimulationTime);
+                    next.setNextSimulationTime(_curSimulationTime);
+                    addToBuffer = false;
+                } else {
+                    next.setPriority(_curSimulationTime + delay);
+                    next.setNextSimulationTime(_curSimulationTime + delay);
                 }
             } else {
-                synchronized (this) {
-                    _running = false;
+                next.setPriority(nextStepTime);
+                next.setNextSimulationTime(nextStepTime);
+            }
+            if(totals.lowestNextTime > next.getPriority()) {
+                totals.lowestNextTime = next.getPriority();
+            }
+            if(!simulationController.enqueue()) {
+                // the user called "runThisInstance" -- the work item has already been re-enqueued for the
+                // current time slice.
+                addToBuffer = false;
+            }
+            if(!simulationController.deleted() && addToBuffer && !(next.getProxyState() == ProxyState.Removed)) {
+                if(buffered == _buffer.length) {
+                    _buffer = Arrays.copyOf(_buffer, buffered << 1);
+                }
+                _buffer[buffered++] = next;
+            }
+        }
+        synchronized (this) {
+            for(int i = 0; i < buffered; i++) {
+                _timeOrderedQueue.add(_buffer[i]);
+                _buffer[i] = null;
+            }
+        }
+    }
+
+    // advances to the next time slice of the lookahead window; returns false once the window is complete
+    private boolean nextTimeSlice() {
+        long next = _curSimulationTime + _simulationInterval;
+        if(next >= _windowEnd) {
+            return false;
+        }
+        _curSimulationTime = next;
+        return true;
+    }
+
+    private SimulationStep callWorkStealing() {
+        WorkbenchSimulationController simulationController = _simulationController;
+        WorkbenchProcessingContext processingContext = _processingContext;
+        Date currentTime = _currentTime;
+        simulationController.resetStatus();
+        StepTotals totals = _stepTotals;
+        totals.reset();
+        // peers run the other time slices of a lookahead window independently, so events are only stolen when the
+        // window is a single time slice
+        boolean steal = _windowEnd <= _curSimulationTime + _simulationInterval;
+        do {
+            currentTime.setTime(_curSimulationTime);
+            // move every due event out of the queue up front so that idle peers can claim them
+            drainDueEvents();
+            claimDueEvents(this, simulationController, processingContext, currentTime);
+            for(int i = 1; steal && i < _peers.size(); i++) {
+                claimDueEvents(_peers.get((_slotId + i) % _peers.size()), simulationController, processingContext, currentTime);
+            }
+        } while(nextTimeSlice());
+        totals.status = simulationController.getSimulationStatus();
+        return completeStep(totals);
+    }
+
+    private SimulationStep callVirtualThreads() throws Exception {
+        StepTotals totals = _stepTotals;
+        totals.reset();
+        ExecutorService service = _twinExecutionEngine.getSimulationEventService();
+        do {
+            drainDueEvents();
+            // group the due events by twin so that the events of a twin run in order on a single thread
+            Map<String, List<SimulationEvent>> twinEvents = new LinkedHashMap<>();
+            SimulationEvent[] dueEvents = _dueEvents;
+            for(int i = 0; i < _dueCount; i++) {
+                twinEvents.computeIfAbsent(dueEvents[i].getId(), id -> new ArrayList<>(1)).add(dueEvents[i]);
+                dueEvents[i] = null;
+            }
+            List<Future<EventTaskState>> futures = new ArrayList<>(twinEvents.size());
+            for(List<SimulationEvent> events : twinEvents.values()) {
+                futures.add(service.submit(() -> processTwinEvents(events)));
+            }
+            for(Future<EventTaskState> future : futures) {
+                EventTaskState state = future.get();
+                StepTotals twinTotals = state.totals;
+                totals.processed += twinTotals.processed;
+                totals.delayed |= twinTotals.delayed;
+                totals.lowestNextTime = Math.min(totals.lowestNextTime, twinTotals.lowestNextTime);
+                if(twinTotals.status != SimulationStatus.Running) {
+                    totals.status = twinTotals.status;
                 }
-                keepProcessing  = false;
-                nextQueueTm     = Long.MAX_VALUE;
+                // the totals have been read, so the state can be handed to the next task
+                _eventTaskStates.add(state);
             }
-        } while (keepProcessing);
+        } while(nextTimeSlice());
+        return completeStep(totals);
+    }
 
-        _timeOrderedQueue.addAll(buffer);
-        _nextSimulationTime = Math.min(lowestNextSimulationTime, nextQueueTm);
+    // runs on an event thread; twins run concurrently, so each task takes its own controller and context from the
+    // worker's idle states, and the worker returns the state once it has read the task's totals
+    private EventTaskState processTwinEvents(List<SimulationEvent> events) {
+        EventTaskState state = _eventTaskStates.poll();
+        if(state == null) {
+            state = new EventTaskState(_twinExecutionEngine, _simulationScheduler);
+        }
+        StepTotals totals = state.totals;
+        totals.reset();
+        state.controller.resetStatus();
+        state.currentTime.setTime(_curSimulationTime);
+        for(SimulationEvent next : events) {
+            processDueEvent(this, next, state.controller, state.context, state.currentTime, totals);
+        }
+        totals.status = state.controller.getSimulationStatus();
+        return state;
+    }
 
-        if(_nextSimulationTime == Long.MAX_VALUE && !delayed) { // check to make sure the user didn't set delay to Long.MAX_VALUE
-            _nextSimulationTime = simulationTime.getNextSimulationTime();
+    // moves every active due event into _dueEvents
+    private synchronized void drainDueEvents() {
+        _running = true;
+        int count = 0;
+        SimulationEvent next;
+        while((next = _timeOrderedQueue.pollDue(_curSimulationTime)) != null) {
+            if(next.getProxyState() == ProxyState.Active) {
+                if(count == _dueEvents.length) {
+                    _dueEvents = Arrays.copyOf(_dueEvents, count << 1);
+                }
+                _dueEvents[count++] = next;
+            }
         }
+        _dueClaimed.set(0);
+        _dueCount = count;
+    }
 
-        SimulationScheduler.PROCESSED.addAndGet(processed);
-        SimulationScheduler.QUEUED.addAndGet(_timeOrderedQueue.size());
-        if(processed > 0) {
-            return new SimulationStep(simulationController.getSimulationStatus(), _nextSimulationTime);
+    private SimulationStep completeStep(StepTotals totals) {
+        long nextQueueTm = Long.MAX_VALUE;
+        int queued;
+        synchronized (this) {
+            // discard removed events to find the time of the next active event
+            SimulationEvent next;
+            while((next = _timeOrderedQueue.peek()) != null && next.getProxyState() != ProxyState.Active) {
+                _timeOrderedQueue.poll();
+            }
+            if(next != null) {
+                // there is remaining work in a later time slice
+                totals.processed++;
+                nextQueueTm = next.getPriority();
+            }
+            _running    = false;
+            queued      = _timeOrderedQueue.size();
+        }
+        _nextSimulationTime = Math.min(totals.lowestNextTime, nextQueueTm);
+        if(_nextSimulationTime == Long.MAX_VALUE && !totals.delayed) {
+            _nextSimulationTime = _curSimulationTime + _simulationInterval;
+        }
+        if(_curSimulationTime > _windowStart && _nextSimulationTime < _windowEnd) {
+            // every event due within the lookahead window has been processed
+            _nextSimulationTime = _windowEnd;
+        }
+
+        SimulationScheduler.PROCESSED.addAndGet(totals.processed);
+        SimulationScheduler.QUEUED.addAndGet(queued);
+        if(totals.processed > 0) {
+            return new SimulationStep(totals.status, _nextSimulationTime);
         } else {
             return new SimulationStep(SimulationStatus.NoRemainingWork, _nextSimulationTime);
         }
     }
+
+    // claims and processes due events from the owner's published due events; processed events are re-enqueued with their owner
+    private void claimDueEvents(SimulationWorker owner, WorkbenchSimulationController simulationController, WorkbenchProcessingContext processingContext, Date currentTime) {
+        int count = owner._dueCount;
+        if(count == 0) return;
+        SimulationEvent[] dueEvents = owner._dueEvents;
+        int idx;
+        while(owner._dueClaimed.get() < count && (idx = owner._dueClaimed.getAndIncrement()) < count) {
+            SimulationEvent next = dueEvents[idx];
+            dueEvents[idx] = null;
+            processDueEvent(owner, next, simulationController, processingContext, currentTime, _stepTotals);
+        }
+    }
+
+    private void processDueEvent(SimulationWorker owner, SimulationEvent next, WorkbenchSimulationController simulationController, WorkbenchProcessingContext processingContext, Date currentTime, StepTotals totals) {
+        totals.processed++;
+        simulationController.reset(_modelName, next.getId());
+        processingContext.reset(_modelName, next.getId(), null);
+        boolean measureCost = _twinExecutionEngine.getRebalanceInterval() > 0;
+        long begin = measureCost ? System.nanoTime() : 0L;
+        try {
+            next.processSimulationEvent(processingContext, currentTime);
+        } catch (Exception e) {
+            _logger.error("simulation processor threw an exception.", e);
+        }
+        if(measureCost) {
+            next.addCostNanos(System.nanoTime() - begin);
+        }
+        boolean enqueue = true;
+        if(simulationController.delayRequested()) {
+            totals.delayed = true;
+            long delay = simulationController.getRequestedDelay();
+            if(delay == 0x0000e677d21fdbffL) {
+                next.setPriority(delay);
+                next.setNextSimulationTime(delay);
+            } else if (delay == 0L) {
+                next.setPriority(_curSimulationTime);
+                next.setNextSimulationTime(_curSimulationTime);
+                enqueue = false;
+            } else {
+                next.setPriority(_curSimulationTime + delay);
+                next.setNextSimulationTime(_curSimulationTime + delay);
+            }
+        } else {
+            next.setPriority(_curSimulationTime + _simulationInterval);
+            next.setNextSimulationTime(_curSimulationTime + _simulationInterval);
+        }
+        if(totals.lowestNextTime > next.getPriority()) {
+            totals.lowestNextTime = next.getPriority();
+        }
+        if(!simulationController.enqueue()) {
+            // the user called "runThisInstance" -- the work item has already been re-enqueued for the
+            // current time slice.
+            enqueue = false;
+        }
+        if(enqueue && !simulationController.deleted() && next.getProxyState() != ProxyState.Removed) {
+            owner.enqueue(next);
+        }
+    }
+
+    private static final class EventTaskState {
+        final WorkbenchSimulationController controller;
+        final WorkbenchProcessingContext    context;
+        final Date                          currentTime = new Date();
+        final StepTotals                    totals      = new StepTotals();
+
+        EventTaskState(TwinExecutionEngine engine, SimulationScheduler scheduler) {
+            controller  = new WorkbenchSimulationController(engine, scheduler);
+            context     = new WorkbenchProcessingContext(engine, controller);
+        }
+    }
+
+    // the totals of the events processed by a worker, or by one of its event threads, in the current step
+    private static final class StepTotals {
+        long                lowestNextTime;
+        boolean             delayed;
+        int                 processed;
+        SimulationStatus    status;
+
+        StepTotals() {
+            reset();
+        }
+
+        void reset() {
+            lowestNextTime  = Long.MAX_VALUE;
+            delayed         = false;
+            processed       = 0;
+            status          = SimulationStatus.Running;
+        }
+    }
 }
@@ -0,0 +1,126 @@
+/*
+ Copyright (c) 2026 by ScaleOut Software, Inc.
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+*/
+package com.scaleoutsoftware.digitaltwin.development;
+
+import com.scaleoutsoftware.digitaltwin.abstractions.CacheOperationStatus;
+import com.scaleoutsoftware.digitaltwin.abstractions.CacheResult;
+import com.scaleoutsoftware.digitaltwin.abstractions.SharedData;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BiFunction;
+
+/**
+ * The shared data a twin sees during a simulation step with {@link SharedDataIsolation#StepSnapshot}. Reads go
+ * straight to the store, which no twin modifies until the step barrier, so every twin reads the state from the start
+ * of the step. Writes are recorded in the {@link StepWriteBuffer} under the twin of the owning context and complete
+ * immediately. Like reads, the results of remove and removeAll report the state at the start of the step and do not
+ * reflect writes the twin has buffered earlier in the same step.
+ */
+class StepSharedData implements SharedData {
+    private final StepWriteBuffer                   _writes;
+    private final WorkbenchProcessingContext<?>     _context;
+    private SharedData                              _store;
+
+    StepSharedData(StepWriteBuffer writes, WorkbenchProcessingContext<?> context) {
+        _writes     = writes;
+        _context    = context;
+    }
+
+    void reset(SharedData store) {
+        _store = store;
+    }
+
+    @Override
+    public CompletableFuture<CacheResult> get(String key) {
+        return _store.get(key);
+    }
+
+    @Override
+    public byte[] getValue(String key) {
+        return _store.getValue(key);
+    }
+
+    @Override
+    public CompletableFuture<Map<String, byte[]>> getAll(Collection<String> keys) {
+        return _store.getAll(keys);
+    }
+
+    @Override
+    public CompletableFuture<CacheResult> put(String key, byte[] value) {
+        _writes.put(_store, _context._model, _context._id, key, value);
+        return WorkbenchSharedData.result(key, value, CacheOperationStatus.ObjectPut);
+    }
+
+    // the status and value describe the key at the start of the step
+    @Override
+    public CompletableFuture<CacheResult> remove(String key) {
+        byte[] v = _store.getValue(key);
+        _writes.remove(_store, _context._model, _context._id, key);
+        return WorkbenchSharedData.result(key, v, v == null ? CacheOperationStatus.ObjectDoesNotExist : CacheOperationStatus.ObjectRemoved);
+    }
+
+    @Override
+    public CompletableFuture<CacheResult> clear() {
+        _writes.clear(_store, _context._model, _context._id);
+        return WorkbenchSharedData.result(null, null, CacheOperationStatus.CacheCleared);
+    }
+
+    @Override
+    public CompletableFuture<Void> putAll(Map<String, byte[]> values) {
+        for(Map.Entry<String, byte[]> entry : values.entrySet()) {
+            _writes.put(_store, _context._model, _context._id, entry.getKey(), entry.getValue());
+        }
+        return CompletableFuture.completedFuture(null);
+    }
+
+    @Override
+    public CompletableFuture<Map<String, byte[]>> removeAll(Collection<String> keys) {
+        Map<String, byte[]> values = new HashMap<>(Math.max(16, keys.size() * 4 / 3 + 1));
+        for(String key : keys) {
+            byte[] v = _store.getValue(key);
+            if(v != null) values.put(key, v);
+            _writes.remove(_store, _context._model, _context._id, key);
+        }
+        return CompletableFuture.completedFuture(values);
+    }
+
+    @Override
+    public CompletableFuture<CacheResult> putIfAbsent(String key, byte[] value) {
+        return unsupported();
+    }
+
+    @Override
+    public CompletableFuture<CacheResult> compareAndSet(String key, byte[] expected, byte[] value) {
+        return unsupported();
+    }
+
+    @Override
+    public CompletableFuture<Long> getAndAdd(String key, long delta) {
+        return unsupported();
+    }
+
+    @Override
+    public CompletableFuture<CacheResult> compute(String key, BiFunction<String, byte[], byte[]> remapping) {
+        return unsupported();
+    }
+
+    private static <R> CompletableFuture<R> unsupported() {
+        return WorkbenchSharedData.failed(new UnsupportedOperationException("Atomic shared data operations are not supported during a simulation step with StepSnapshot isolation."));
+    }
+}
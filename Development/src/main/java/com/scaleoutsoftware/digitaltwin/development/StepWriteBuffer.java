@@ -0,0 +1,122 @@
+/*
+ Copyright (c) 2026 by ScaleOut Software, Inc.
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+*/
+package com.scaleoutsoftware.digitaltwin.development;
+
+import com.scaleoutsoftware.digitaltwin.abstractions.SharedData;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Holds the shared data writes made during a simulation step with {@link SharedDataIsolation#StepSnapshot}. Each
+ * thread appends to its own list without synchronization; the lists are published at the step barrier, when no twin
+ * is running.
+ */
+class StepWriteBuffer {
+    private static final Comparator<Write>                  ORDER   = Comparator.comparing((Write w) -> w._model).thenComparing(w -> w._id);
+    private final Logger                                    _logger = LogManager.getLogger(StepWriteBuffer.class);
+    private final ThreadLocal<ThreadWrites>                 _local  = ThreadLocal.withInitial(ThreadWrites::new);
+    private final ConcurrentLinkedQueue<ThreadWrites>       _active = new ConcurrentLinkedQueue<>();
+    private volatile long                                   _step;
+
+    void put(SharedData store, String model, String id, String key, byte[] value) {
+        writes().add(new Write(store, model, id, Operation.Put, key, value));
+    }
+
+    void remove(SharedData store, String model, String id, String key) {
+        writes().add(new Write(store, model, id, Operation.Remove, key, null));
+    }
+
+    void clear(SharedData store, String model, String id) {
+        writes().add(new Write(store, model, id, Operation.Clear, null, null));
+    }
+
+    // applies the buffered writes to their stores, ordered by model and twin id. The sort is stable, so the writes a twin
+    // made on one thread keep their order; writes a twin made on different threads follow the order in which those
+    // threads first wrote during the step, which depends on timing. Must only be called while no twin is running.
+    int publish() {
+        List<Write> writes = new ArrayList<>();
+        ThreadWrites local;
+        while((local = _active.poll()) != null) {
+            writes.addAll(local._writes);
+            local._writes.clear();
+        }
+        _step++;
+        writes.sort(ORDER);
+        for(Write write : writes) {
+            try {
+                switch (write._operation) {
+                    case Put:
+                        write._store.put(write._key, write._value).join();
+                        break;
+                    case Remove:
+                        write._store.remove(write._key).join();
+                        break;
+                    case Clear:
+                        write._store.clear().join();
+                        break;
+                }
+            } catch (RuntimeException e) {
+                _logger.error("Failed to publish a shared data write from {}/{}.", write._model, write._id, e);
+            }
+        }
+        return writes.size();
+    }
+
+    private List<Write> writes() {
+        ThreadWrites local = _local.get();
+        long step = _step;
+        if(local._step != step) {
+            local._step = step;
+            local._writes.clear();
+            _active.add(local);
+        }
+        return local._writes;
+    }
+
+    private enum Operation {
+        Put,
+        Remove,
+        Clear
+    }
+
+    private static class ThreadWrites {
+        private final List<Write>   _writes = new ArrayList<>();
+        private long                _step   = -1;
+    }
+
+    private static class Write {
+        private final SharedData    _store;
+        private final String        _model;
+        private final String        _id;
+        private final Operation     _operation;
+        private final String        _key;
+        private final byte[]        _value;
+
+        Write(SharedData store, String model, String id, Operation operation, String key, byte[] value) {
+            _store      = store;
+            _model      = model;
+            _id         = id;
+            _operation  = operation;
+            _key        = key;
+            _value      = value;
+        }
+    }
+}
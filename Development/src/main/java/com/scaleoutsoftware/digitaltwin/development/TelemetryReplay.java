@@ -0,0 +1,351 @@
+/*
+ Copyright (c) 2026 by ScaleOut Software, Inc.
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+*/
+package com.scaleoutsoftware.digitaltwin.development;
+
+import com.google.gson.Gson;
+import com.scaleoutsoftware.digitaltwin.abstractions.SendingResult;
+
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Replays a recorded telemetry capture through {@link Workbench#send(String, String, ByteBuffer)}. The capture file is
+ * memory-mapped and each record's payload is sent as a slice of the mapping, so records are neither copied nor parsed
+ * into intermediate Strings; model names and twin ids are cached by their bytes.
+ * <p>
+ * By default records are sent as fast as the workbench accepts them. With {@link #setSpeedup(double)} records are
+ * paced by their recorded timestamps. A replay runs on the calling thread.
+ * </p>
+ */
+public class TelemetryReplay {
+    private static final long       MAX_MAPPING     = Integer.MAX_VALUE;
+
+    private final Workbench         _workbench;
+    private final Path              _capture;
+    private final CaptureFormat     _format;
+    private final NameCache         _models         = new NameCache(64);
+    private final NameCache         _ids            = new NameCache(4096);
+    private double                  _speedup;
+    private long                    _mappingSize    = MAX_MAPPING;
+    private LatencyHistogram        _latencies;
+    private long                    _messages;
+    private long                    _notHandled;
+    private long                    _startNanos;
+    private long                    _firstTimestamp;
+    private boolean                 _timestampSeen;
+
+    /**
+     * Creates a replay of a capture file.
+     *
+     * @param workbench the workbench to send the messages to.
+     * @param capture the capture file.
+     * @param format the format of the capture file.
+     * @throws WorkbenchException if any argument is null.
+     */
+    public TelemetryReplay(Workbench workbench, Path capture, CaptureFormat format) throws WorkbenchException {
+        if(workbench == null || capture == null || format == null) {
+            throw new WorkbenchException(new IllegalArgumentException("Workbench, capture and format are required."));
+        }
+        _workbench  = workbench;
+        _capture    = capture;
+        _format     = format;
+    }
+
+    /**
+     * Paces the replay by the recorded timestamps. A record is sent when the time since the replay started reaches the
+     * time since the first record's timestamp divided by the speedup. A speedup of 0, the default, sends the records
+     * as fast as possible.
+     *
+     * @param speedup the replay speedup, or 0 for no pacing.
+     * @return this replay.
+     * @throws WorkbenchException if speedup is negative.
+     */
+    public TelemetryReplay setSpeedup(double speedup) throws WorkbenchException {
+        if(speedup < 0 || Double.isNaN(speedup)) throw new WorkbenchException(new IllegalArgumentException("Speedup must not be negative."));
+        _speedup = speedup;
+        return this;
+    }
+
+    // for tests: forces captures to be mapped in several regions
+    void setMappingSize(long mappingSize) {
+        _mappingSize = mappingSize;
+    }
+
+    /**
+     * Replays the capture file.
+     *
+     * @return the replay metrics.
+     * @throws WorkbenchException if the capture file cannot be read or holds a malformed record.
+     */
+    public ReplayMetrics run() throws WorkbenchException {
+        _latencies      = new LatencyHistogram();
+        _messages       = 0;
+        _notHandled     = 0;
+        _timestampSeen  = false;
+        _startNanos     = System.nanoTime();
+        try (FileChannel channel = FileChannel.open(_capture, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long offset = 0;
+            while(offset < size) {
+                long length = Math.min(size - offset, _mappingSize);
+                boolean last = offset + length == size;
+                MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+                int consumed = _format == CaptureFormat.NDJson ? replayJson(mapped, offset, last) : replayBinary(mapped, offset, last);
+                if(consumed == 0) {
+                    throw new WorkbenchException(String.format("The capture record at offset %d is larger than the maximum mapping size.", offset));
+                }
+                offset += consumed;
+            }
+        } catch (IOException e) {
+            throw new WorkbenchException(e);
+        }
+        return new ReplayMetrics(_messages, _notHandled, System.nanoTime() - _startNanos, _latencies);
+    }
+
+    // replays the complete records of a mapping and returns the number of bytes they span; the final record of the
+    // file may end without a newline
+    private int replayJson(ByteBuffer buf, long base, boolean last) throws WorkbenchException {
+        int limit = buf.limit();
+        int pos = 0;
+        while(pos < limit) {
+            int end = pos;
+            while(end < limit && buf.get(end) != '\n') end++;
+            if(end == limit && !last) break;
+            replayJsonLine(buf, pos, end, base);
+            pos = end < limit ? end + 1 : end;
+        }
+        return pos;
+    }
+
+    private void replayJsonLine(ByteBuffer buf, int start, int end, long base) throws WorkbenchException {
+        int pos = skipWhitespace(buf, start, end);
+        if(pos == end) return;
+        if(buf.get(pos) != '{') throw malformed(base + start);
+        String model = null;
+        String id = null;
+        long timestamp = Long.MIN_VALUE;
+        int payloadStart = -1, payloadEnd = -1;
+        pos = skipWhitespace(buf, pos + 1, end);
+        while(pos < end && buf.get(pos) != '}') {
+            if(buf.get(pos) != '"') throw malformed(base + start);
+            int keyStart = pos + 1;
+            int keyEnd = skipValue(buf, pos, end) - 1;
+            pos = skipWhitespace(buf, keyEnd + 1, end);
+            if(pos == end || buf.get(pos) != ':') throw malformed(base + start);
+            int valueStart = skipWhitespace(buf, pos + 1, end);
+            int valueEnd = skipValue(buf, valueStart, end);
+            if(valueEnd <= valueStart) throw malformed(base + start);
+            if(matches(buf, keyStart, keyEnd, "model")) {
+                model = jsonString(buf, valueStart, valueEnd, _models, base + start);
+            } else if(matches(buf, keyStart, keyEnd, "id")) {
+                id = jsonString(buf, valueStart, valueEnd, _ids, base + start);
+            } else if(matches(buf, keyStart, keyEnd, "timestamp")) {
+                timestamp = parseLong(buf, valueStart, valueEnd, base + start);
+            } else if(matches(buf, keyStart, keyEnd, "payload")) {
+                payloadStart = valueStart;
+                payloadEnd = valueEnd;
+            }
+            pos = skipWhitespace(buf, valueEnd, end);
+            if(pos < end && buf.get(pos) == ',') pos = skipWhitespace(buf, pos + 1, end);
+        }
+        if(pos == end || model == null || id == null || payloadStart < 0) throw malformed(base + start);
+        replay(model, id, timestamp, buf, payloadStart, payloadEnd);
+    }
+
+    private int replayBinary(ByteBuffer buf, long base, boolean last) throws WorkbenchException {
+        int limit = buf.limit();
+        int pos = 0;
+        while(pos < limit) {
+            int modelEnd = field(buf, pos, limit, base);
+            int idEnd = modelEnd < 0 ? -1 : field(buf, modelEnd, limit, base);
+            int payloadEnd = idEnd < 0 || idEnd + 8 > limit ? -1 : field(buf, idEnd + 8, limit, base);
+            if(payloadEnd < 0) {
+                if(last) throw malformed(base + pos);
+                break;
+            }
+            String model = _models.get(buf, pos + 4, modelEnd, false);
+            String id = _ids.get(buf, modelEnd + 4, idEnd, false);
+            replay(model, id, buf.getLong(idEnd), buf, idEnd + 12, payloadEnd);
+            pos = payloadEnd;
+        }
+        return pos;
+    }
+
+    // the end of the length-prefixed field at pos, or -1 if the field does not fit in the mapping
+    private static int field(ByteBuffer buf, int pos, int limit, long base) throws WorkbenchException {
+        if(pos + 4 > limit) return -1;
+        int length = buf.getInt(pos);
+        if(length < 0) throw malformed(base + pos);
+        long end = (long)pos + 4 + length;
+        return end > limit ? -1 : (int)end;
+    }
+
+    private void replay(String model, String id, long timestamp, ByteBuffer buf, int payloadStart, int payloadEnd) throws WorkbenchException {
+        if(_speedup > 0 && timestamp != Long.MIN_VALUE) pace(timestamp);
+        // each message gets its own view, since a workbench may queue the buffer; the Buffer casts keep this class
+        // binary compatible with Java 8, where ByteBuffer does not override limit and position
+        ByteBuffer payload = buf.duplicate();
+        ((Buffer) payload).limit(payloadEnd);
+        ((Buffer) payload).position(payloadStart);
+        long sendStart = System.nanoTime();
+        SendingResult result;
+        try {
+            result = _workbench.send(model, id, payload);
+        } catch (WorkbenchException e) {
+            result = SendingResult.NotHandled;
+        }
+        _latencies.record(System.nanoTime() - sendStart);
+        _messages++;
+        if(result == SendingResult.NotHandled) _notHandled++;
+    }
+
+    private void pace(long timestamp) {
+        if(!_timestampSeen) {
+            _timestampSeen  = true;
+            _firstTimestamp = timestamp;
+            _startNanos     = System.nanoTime();
+            return;
+        }
+        long due = _startNanos + (long)((timestamp - _firstTimestamp) * 1_000_000d / _speedup);
+        long wait;
+        while((wait = due - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(wait);
+        }
+    }
+
+    private static int skipWhitespace(ByteBuffer buf, int pos, int end) {
+        while(pos < end) {
+            byte b = buf.get(pos);
+            if(b != ' ' && b != '\t' && b != '\r' && b != '\n') break;
+            pos++;
+        }
+        return pos;
+    }
+
+    // the position after the JSON value at pos
+    private static int skipValue(ByteBuffer buf, int pos, int end) {
+        if(pos == end) return pos;
+        byte first = buf.get(pos);
+        if(first == '"') return skipString(buf, pos, end);
+        if(first == '{' || first == '[') {
+            int depth = 0;
+            while(pos < end) {
+                byte b = buf.get(pos);
+                if(b == '"') {
+                    pos = skipString(buf, pos, end);
+                    continue;
+                }
+                if(b == '{' || b == '[') depth++;
+                else if((b == '}' || b == ']') && --depth == 0) return pos + 1;
+                pos++;
+            }
+            return end;
+        }
+        while(pos < end) {
+            byte b = buf.get(pos);
+            if(b == ',' || b == '}' || b == ']' || b == ' ' || b == '\t' || b == '\r') break;
+            pos++;
+        }
+        return pos;
+    }
+
+    private static int skipString(ByteBuffer buf, int pos, int end) {
+        pos++;
+        while(pos < end) {
+            byte b = buf.get(pos);
+            if(b == '\\') pos += 2;
+            else if(b == '"') return pos + 1;
+            else pos++;
+        }
+        return end;
+    }
+
+    private static boolean matches(ByteBuffer buf, int start, int end, String key) {
+        if(end - start != key.length()) return false;
+        for(int i = 0; i < key.length(); i++) {
+            if(buf.get(start + i) != key.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    private static String jsonString(ByteBuffer buf, int start, int end, NameCache cache, long offset) throws WorkbenchException {
+        if(end - start < 2 || buf.get(start) != '"' || buf.get(end - 1) != '"') throw malformed(offset);
+        boolean escaped = false;
+        for(int i = start + 1; i < end - 1 && !escaped; i++) {
+            escaped = buf.get(i) == '\\';
+        }
+        return cache.get(buf, start + 1, end - 1, escaped);
+    }
+
+    private static long parseLong(ByteBuffer buf, int start, int end, long offset) throws WorkbenchException {
+        boolean negative = buf.get(start) == '-';
+        int pos = negative ? start + 1 : start;
+        if(pos == end) throw malformed(offset);
+        long value = 0;
+        for(; pos < end; pos++) {
+            byte b = buf.get(pos);
+            if(b < '0' || b > '9') throw malformed(offset);
+            value = value * 10 + (b - '0');
+        }
+        return negative ? -value : value;
+    }
+
+    private static WorkbenchException malformed(long offset) {
+        return new WorkbenchException(String.format("Malformed capture record at offset %d.", offset));
+    }
+
+    /**
+     * Maps byte ranges to Strings without allocating when the range was seen before. Each slot holds the most recent
+     * name that hashed to it.
+     */
+    private static class NameCache {
+        private static final Gson   _gson = new Gson();
+        private final byte[][]      _keys;
+        private final String[]      _names;
+
+        NameCache(int slots) {
+            _keys   = new byte[slots][];
+            _names  = new String[slots];
+        }
+
+        // escaped ranges hold a JSON string body with escape sequences, which are decoded
+        String get(ByteBuffer buf, int start, int end, boolean escaped) {
+            int hash = 1;
+            for(int i = start; i < end; i++) hash = 31 * hash + buf.get(i);
+            int slot = (hash ^ (hash >>> 16)) & (_keys.length - 1);
+            byte[] key = _keys[slot];
+            if(key != null && key.length == end - start) {
+                int i = 0;
+                while(i < key.length && key[i] == buf.get(start + i)) i++;
+                if(i == key.length) return _names[slot];
+            }
+            key = new byte[end - start];
+            for(int i = 0; i < key.length; i++) key[i] = buf.get(start + i);
+            String name = new String(key, StandardCharsets.UTF_8);
+            if(escaped) name = _gson.fromJson('"' + name + '"', String.class);
+            _keys[slot]     = key;
+            _names[slot]    = name;
+            return name;
+        }
+    }
+}
@@ -15,31 +15,67 @@
 */
 package com.scaleoutsoftware.digitaltwin.development;
 
-import com.google.gson.Gson;
 import com.scaleoutsoftware.digitaltwin.abstractions.*;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 
 import java.io.Closeable;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.util.*;
-import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BinaryOperator;
+import java.util.function.Supplier;
 
 class TwinExecutionEngine implements Closeable {
+    private static final int                                                                DELIVERY_BATCH = 64;
+    static final int                                                                        DEFAULT_INBOUND_CAPACITY = 65536;
+    static final long                                                                       DEFAULT_INBOUND_TIMEOUT_MS = 5000L;
+    static final int                                                                        DEFAULT_SIMULATION_EVENT_THREADS = Math.max(16, 4 * Runtime.getRuntime().availableProcessors());
+    private final Logger                                                                    _logger = LogManager.getLogger(TwinExecutionEngine.class);
     private List<String>                                                                    _modelNames;
     private ConcurrentHashMap<String, Class<? extends DigitalTwinBase<?>>>                  _digitalTwins;
     private ConcurrentHashMap<String, MessageProcessor<?>>                                  _messageProcessors;
     private ConcurrentHashMap<String, SimulationProcessor<?>>                               _simulationProcessors;
     private ConcurrentHashMap<String, ConcurrentHashMap<String, TwinProxy>>                 _modelInstances;
+    private ConcurrentHashMap<String, ModelMetadata>                                        _models;
+    private final ThreadLocal<MessageContexts>                                              _messageContexts = ThreadLocal.withInitial(MessageContexts::new);
     private ConcurrentHashMap<String,String>                                                _alertProviders;
-    private ConcurrentHashMap<String, HashMap<String,byte[]>>                               _modelsSharedData;
-    private HashMap<String,byte[]>                                                          _globalSharedData;
+    private ConcurrentHashMap<String, ConcurrentHashMap<String,byte[]>>                     _modelsSharedData;
+    private ConcurrentHashMap<String,byte[]>                                                _globalSharedData;
+    private volatile SharedData                                                             _globalSharedDataWrapper;
     private Workbench                                                                       _workbench;
     private ConcurrentHashMap<String, SimulationScheduler>                                  _simulationSchedulers;
     private ConcurrentHashMap<String, WorkbenchTimerTask>                                   _realTimeTimers;
-    private Gson                                                                            _gson;
+    private volatile SimulationExecutionMode                                                _simulationExecutionMode;
+    private volatile boolean                                                                _parallelModelSteps;
+    private volatile SimulationEventQueueType                                               _simulationEventQueueType;
+    private volatile int                                                                    _rebalanceInterval;
+    // cross-twin sends made during a lookahead window, delivered once every model completes the window
+    private final ConcurrentLinkedQueue<DeferredSend>                                       _deferredSends = new ConcurrentLinkedQueue<>();
+    private volatile boolean                                                                _deferSends;
+    private volatile TwinMessageDelivery                                                    _twinMessageDelivery;
+    // step snapshot isolation: twin shared data writes made during a step, published at the step barrier
+    private final StepWriteBuffer                                                           _stepWrites = new StepWriteBuffer();
+    private volatile SharedDataIsolation                                                    _sharedDataIsolation;
+    private volatile boolean                                                                _isolateSharedData;
+    // messages waiting in twin mailboxes; awaitQueuedMessages waits for this to reach zero
+    private final AtomicInteger                                                             _queuedMessages = new AtomicInteger(0);
+    private final Object                                                                    _queuedMessagesLock = new Object();
+    // messages sent to the workbench while a simulation runs, delivered at the next simulation step boundary
+    private volatile ArrayBlockingQueue<InboundMessage>                                     _inboundMessages;
+    private volatile long                                                                   _inboundTimeoutMs;
+    private volatile int                                                                    _messagePartitions;
+    private volatile double                                                                 _rebalanceThreshold;
+    private ExecutorService                                                                 _modelStepService;
+    private volatile ExecutorService                                                        _sharedSimulationService;
+    private ExecutorService                                                                 _simulationEventService;
+    // the thread limit of the platform thread pool that stands in for virtual threads before Java 21
+    private int                                                                             _simulationEventThreadLimit = DEFAULT_SIMULATION_EVENT_THREADS;
+    private ExecutorService                                                                 _messageService;
 
 
     TwinExecutionEngine(Workbench workbench) {
@@ -53,26 +89,47 @@ class TwinExecutionEngine implements Closeable {
         _messageProcessors      = new ConcurrentHashMap<>();
         _simulationProcessors   = new ConcurrentHashMap<>();
         _modelInstances         = new ConcurrentHashMap<>();
+        _models                 = new ConcurrentHashMap<>();
         _modelsSharedData       = new ConcurrentHashMap<>();
-        _globalSharedData       = new HashMap<>();
+        _globalSharedData       = new ConcurrentHashMap<>();
+        _globalSharedDataWrapper = new WorkbenchSharedData(_globalSharedData);
         _alertProviders         = new ConcurrentHashMap<>();
         _simulationSchedulers   = new ConcurrentHashMap<>();
         _realTimeTimers         = new ConcurrentHashMap<>();
-        _gson                   = new Gson();
+        _simulationExecutionMode = SimulationExecutionMode.Pooled;
+        _simulationEventQueueType = SimulationEventQueueType.Heap;
+        _twinMessageDelivery    = TwinMessageDelivery.Synchronous;
+        _sharedDataIsolation    = SharedDataIsolation.None;
+        _inboundMessages        = new ArrayBlockingQueue<>(DEFAULT_INBOUND_CAPACITY);
+        _inboundTimeoutMs       = DEFAULT_INBOUND_TIMEOUT_MS;
+        _messagePartitions      = Runtime.getRuntime().availableProcessors();
     }
 
-    void addDigitalTwin(String digitalTwinModelName, MessageProcessor digitalTwinMessageProcessor, Class dtType) {
+    void addDigitalTwin(String digitalTwinModelName, MessageProcessor digitalTwinMessageProcessor, Class dtType, Supplier<? extends DigitalTwinBase> factory) {
         _modelNames.add(digitalTwinModelName);
         _digitalTwins.put(digitalTwinModelName, dtType);
         _messageProcessors.put(digitalTwinModelName, digitalTwinMessageProcessor);
+        addModelMetadata(digitalTwinModelName, digitalTwinMessageProcessor, null, dtType, factory);
     }
 
-    void addDigitalTwin(String digitalTwinModelName, MessageProcessor digitalTwinMessageProcessor, SimulationProcessor simulationProcessor, Class dtType, int numWorkers) {
+    void addDigitalTwin(String digitalTwinModelName, MessageProcessor digitalTwinMessageProcessor, SimulationProcessor simulationProcessor, Class dtType, Supplier<? extends DigitalTwinBase> factory, int numWorkers) {
         _modelNames.add(digitalTwinModelName);
         _digitalTwins.put(digitalTwinModelName, dtType);
         _messageProcessors.put(digitalTwinModelName, digitalTwinMessageProcessor);
         _simulationProcessors.put(digitalTwinModelName, simulationProcessor);
-        _simulationSchedulers.put(digitalTwinModelName, new SimulationScheduler(digitalTwinModelName, dtType, simulationProcessor, this, numWorkers));
+        SimulationScheduler scheduler = new SimulationScheduler(digitalTwinModelName, dtType, simulationProcessor, this, numWorkers);
+        _simulationSchedulers.put(digitalTwinModelName, scheduler);
+        addModelMetadata(digitalTwinModelName, digitalTwinMessageProcessor, scheduler, dtType, factory);
+    }
+
+    private void addModelMetadata(String modelName, MessageProcessor messageProcessor, SimulationScheduler scheduler, Class dtType, Supplier<? extends DigitalTwinBase> factory) {
+        ConcurrentHashMap<String, TwinProxy> instances = _modelInstances.get(modelName);
+        if(instances == null) {
+            instances = new ConcurrentHashMap<>();
+            ConcurrentHashMap<String, TwinProxy> prev = _modelInstances.putIfAbsent(modelName, instances);
+            if(prev != null) instances = prev;
+        }
+        _models.put(modelName, new ModelMetadata(modelName, dtType, messageProcessor, scheduler, instances, getModelData(modelName), factory));
     }
 
     void addTimer(String modelName, String id, String timerName, TimerType type, Duration interval, TimerHandler handler) {
@@ -131,6 +188,123 @@ class TwinExecutionEngine implements Closeable {
         }
     }
 
+    SimulationExecutionMode getSimulationExecutionMode() {
+        return _simulationExecutionMode;
+    }
+
+    void setSimulationExecutionMode(SimulationExecutionMode mode) {
+        _simulationExecutionMode = mode;
+    }
+
+    SimulationEventQueueType getSimulationEventQueueType() {
+        return _simulationEventQueueType;
+    }
+
+    void setSimulationEventQueueType(SimulationEventQueueType type) {
+        _simulationEventQueueType = type;
+        for(SimulationScheduler scheduler : _simulationSchedulers.values()) {
+            scheduler.setEventQueueType(type);
+        }
+    }
+
+    void setMessagePartitions(int partitions) {
+        _messagePartitions = partitions;
+    }
+
+    // replaces the inbound queue; refused while the current queue still holds messages, which would be lost
+    boolean setInboundCapacity(int capacity, long timeoutMs) {
+        if(!_inboundMessages.isEmpty()) {
+            return false;
+        }
+        _inboundMessages    = new ArrayBlockingQueue<>(capacity);
+        _inboundTimeoutMs   = timeoutMs;
+        return true;
+    }
+
+    // queues a message that arrived while a simulation is running; waits up to the inbound timeout while the queue is
+    // full and returns false if no space became available
+    boolean enqueueInbound(String model, String id, byte[] message, ByteBuffer buffer) throws InterruptedException {
+        return _inboundMessages.offer(new InboundMessage(model, id, message, buffer, System.currentTimeMillis()), _inboundTimeoutMs, TimeUnit.MILLISECONDS);
+    }
+
+    // delivers the queued inbound messages that arrived before this call; each model's messages are processed in
+    // parallel across the message partitions with the same per-twin ordering as sendAll
+    void deliverInboundMessages() {
+        deliverInboundMessages(System.currentTimeMillis());
+    }
+
+    // delivers every queued inbound message regardless of when it arrived; used once the simulation stops
+    void drainInboundMessages() {
+        deliverInboundMessages(Long.MAX_VALUE);
+    }
+
+    private void deliverInboundMessages(long cutoff) {
+        ArrayBlockingQueue<InboundMessage> inbound = _inboundMessages;
+        if(inbound.isEmpty()) {
+            return;
+        }
+        Map<String, List<WorkbenchMessage>> byModel = new LinkedHashMap<>();
+        InboundMessage next;
+        while((next = inbound.peek()) != null && next._timestamp <= cutoff) {
+            inbound.poll();
+            WorkbenchMessage message = next._buffer != null ? new WorkbenchMessage(next._id, next._buffer) : new WorkbenchMessage(next._id, next._message);
+            byModel.computeIfAbsent(next._model, k -> new ArrayList<>()).add(message);
+        }
+        for(Map.Entry<String, List<WorkbenchMessage>> entry : byModel.entrySet()) {
+            sendAll(entry.getKey(), entry.getValue(), _messagePartitions);
+        }
+    }
+
+    void setTwinMessageDelivery(TwinMessageDelivery delivery) {
+        _twinMessageDelivery = delivery;
+    }
+
+    void setSharedDataIsolation(SharedDataIsolation isolation) {
+        _sharedDataIsolation = isolation;
+    }
+
+    boolean isSharedDataIsolated() {
+        return _isolateSharedData;
+    }
+
+    StepWriteBuffer getStepWrites() {
+        return _stepWrites;
+    }
+
+    int getRebalanceInterval() {
+        return _rebalanceInterval;
+    }
+
+    double getRebalanceThreshold() {
+        return _rebalanceThreshold;
+    }
+
+    void setSimulationRebalancing(int stepInterval, double imbalanceThreshold) {
+        _rebalanceThreshold = imbalanceThreshold;
+        _rebalanceInterval  = stepInterval;
+    }
+
+    SimulationRebalanceMetrics getRebalanceMetrics(String modelName) {
+        SimulationScheduler scheduler = _simulationSchedulers.get(modelName);
+        return scheduler == null ? null : scheduler.getRebalanceMetrics();
+    }
+
+    ExecutorService getSharedSimulationService() {
+        return _sharedSimulationService;
+    }
+
+    synchronized boolean createSharedSimulationService(int numThreads) {
+        if(_sharedSimulationService != null) {
+            return false;
+        }
+        _sharedSimulationService = Executors.newFixedThreadPool(numThreads, SimulationScheduler::newWorkerThread);
+        return true;
+    }
+
+    void setParallelModelSteps(boolean parallel) {
+        _parallelModelSteps = parallel;
+    }
+
     List<String> runningModels() {
         return _modelNames;
     }
@@ -178,24 +352,249 @@ class TwinExecutionEngine implements Closeable {
     }
 
     boolean hasModel(String modelName) {
-        return _modelNames.contains(modelName);
+        return _models.containsKey(modelName);
     }
 
-    SendingResult sendToSource(String source, String model, String id, byte[] msg) throws WorkbenchException {
+    void setMessageCoalescing(String modelName, MessageCoalescing coalescing, BinaryOperator<byte[]> merger) throws WorkbenchException {
+        ModelMetadata metadata = _models.get(modelName);
+        if(metadata == null) throw new WorkbenchException("The model does not exist on this workbench.");
+        if(coalescing == MessageCoalescing.Batch && metadata.getCodec() != null) {
+            throw new WorkbenchException(String.format("Model %s uses a TypedMessageProcessor, which does not support batch coalescing.", modelName));
+        }
+        metadata.setCoalescing(coalescing, merger);
+    }
+
+    SendingResult sendToSource(String source, String model, String id, byte[] msg, ByteBuffer buffer) throws WorkbenchException {
         if(_modelNames.contains(source)) {
-            run(source, id, null, msg);
+            run(source, id, null, msg, buffer);
             return SendingResult.Handled;
         } else {
             ConcurrentHashMap<String, List<String>> messagesByModel = _workbench.SOURCE_MESSAGES.getOrDefault(model, new ConcurrentHashMap<>());
             List<String> messages = messagesByModel.getOrDefault(id, new LinkedList<>());
-            messages.add(new String(msg, StandardCharsets.UTF_8));
+            messages.add(buffer != null ? StandardCharsets.UTF_8.decode(buffer.duplicate()).toString() : new String(msg, StandardCharsets.UTF_8));
             messagesByModel.put(id, messages);
             _workbench.SOURCE_MESSAGES.put(model, messagesByModel);
             return SendingResult.Handled;
         }
     }
 
+    // with step snapshot isolation, the shared data writes of every model are published once the step, its deferred
+    // sends and its queued messages have completed
     SimulationStep runSimulationStep(SimulationStepArgs args) {
+        deliverInboundMessages();
+        if(_sharedDataIsolation != SharedDataIsolation.StepSnapshot) {
+            return runStepWindow(args);
+        }
+        _isolateSharedData = true;
+        try {
+            return runStepWindow(args);
+        } finally {
+            _isolateSharedData = false;
+            _stepWrites.publish();
+        }
+    }
+
+    private SimulationStep runStepWindow(SimulationStepArgs args) {
+        if(args.getWindowEnd() <= args.getCurSimulationTime() + args.getIterationSize()) {
+            try {
+                return runModelSteps(args);
+            } finally {
+                awaitQueuedMessagesQuietly();
+            }
+        }
+        _deferSends = true;
+        try {
+            return runModelSteps(args);
+        } finally {
+            _deferSends = false;
+            deliverDeferredSends();
+            awaitQueuedMessagesQuietly();
+        }
+    }
+
+    // sends a message from one twin to another; inside a lookahead window the message is held until the window
+    // completes so that twins running ahead in the window never observe each other
+    SendingResult sendToTwin(String model, String id, String source, byte[] message, ByteBuffer buffer) throws WorkbenchException {
+        if(_deferSends) {
+            _deferredSends.add(new DeferredSend(model, id, source, message, buffer));
+            return SendingResult.Enqueued;
+        }
+        if(_twinMessageDelivery == TwinMessageDelivery.Queued) {
+            ModelMetadata metadata = _models.get(model);
+            if(metadata == null) {
+                throw new WorkbenchException(String.format("DigitalTwin model \"%s\" does not exist on this workbench.", model));
+            }
+            TwinMailbox mailbox = metadata.getMailbox(id);
+            enqueue(mailbox, source, message, buffer);
+            if(mailbox.tryAcquire()) {
+                scheduleDrain(metadata, id, mailbox);
+            } else if(mailbox.isRetired()) {
+                rehome(metadata, id, mailbox, true);
+            }
+            return SendingResult.Enqueued;
+        }
+        return run(model, id, source, message, buffer) != null ? SendingResult.Handled : SendingResult.Enqueued;
+    }
+
+    // waits until every queued mailbox message has been processed
+    void awaitQueuedMessages() throws InterruptedException {
+        synchronized (_queuedMessagesLock) {
+            while(_queuedMessages.get() > 0) {
+                _queuedMessagesLock.wait();
+            }
+        }
+    }
+
+    private void awaitQueuedMessagesQuietly() {
+        try {
+            awaitQueuedMessages();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void deliverDeferredSends() {
+        DeferredSend send;
+        while((send = _deferredSends.poll()) != null) {
+            try {
+                run(send._model, send._id, send._source, send._message, send._buffer);
+            } catch (WorkbenchException e) {
+                _logger.error("Failed to deliver a deferred message to {}/{}.", send._model, send._id, e);
+            }
+        }
+    }
+
+    // processes a batch of messages for one model; messages are partitioned by twin so each twin's messages run in
+    // order on a single thread, and the first partition runs on the calling thread
+    SendingResult[] sendAll(String model, List<WorkbenchMessage> messages, int numPartitions) {
+        SendingResult[] results = new SendingResult[messages.size()];
+        Object[] decoded = decodeAll(model, messages, results);
+        int partitions = Math.min(numPartitions, messages.size());
+        if(partitions <= 1) {
+            int[] all = new int[messages.size()];
+            for(int i = 0; i < all.length; i++) all[i] = i;
+            runPartition(model, messages, decoded, all, results);
+            return results;
+        }
+        int[] slots = new int[messages.size()];
+        int[] counts = new int[partitions];
+        for(int i = 0; i < slots.length; i++) {
+            slots[i] = (int)(Constants.getHash(messages.get(i).getId().getBytes(StandardCharsets.UTF_8)) % (long)partitions);
+            counts[slots[i]]++;
+        }
+        int[][] indexes = new int[partitions][];
+        for(int p = 0; p < partitions; p++) {
+            indexes[p] = new int[counts[p]];
+            counts[p] = 0;
+        }
+        for(int i = 0; i < slots.length; i++) {
+            indexes[slots[i]][counts[slots[i]]++] = i;
+        }
+        List<Future<?>> futures = new ArrayList<>(partitions-1);
+        ExecutorService service = getMessageService();
+        for(int p = 1; p < partitions; p++) {
+            int[] partition = indexes[p];
+            if(partition.length > 0) {
+                futures.add(service.submit(() -> runPartition(model, messages, decoded, partition, results)));
+            }
+        }
+        runPartition(model, messages, decoded, indexes[0], results);
+        for(Future<?> f : futures) {
+            try {
+                f.get();
+            } catch (InterruptedException | ExecutionException e) {
+                throw new RuntimeException(e);
+            }
+        }
+        return results;
+    }
+
+    // for a typed model, decodes each distinct message payload of a batch once so that a payload sent to many twins
+    // is not decoded for every twin; returns null for other models. Messages that fail to decode are NotHandled
+    private Object[] decodeAll(String model, List<WorkbenchMessage> messages, SendingResult[] results) {
+        ModelMetadata metadata = _models.get(model);
+        if(metadata == null || metadata.getCodec() == null) return null;
+        Object[] decoded = new Object[messages.size()];
+        IdentityHashMap<Object, Object> payloads = new IdentityHashMap<>();
+        for(int i = 0; i < decoded.length; i++) {
+            WorkbenchMessage message = messages.get(i);
+            Object payload = message.getBuffer() != null ? message.getBuffer() : message.getMessage();
+            if(payloads.containsKey(payload)) {
+                decoded[i] = payloads.get(payload);
+                continue;
+            }
+            try {
+                decoded[i] = metadata.decode(message.getMessage(), message.getBuffer());
+                payloads.put(payload, decoded[i]);
+            } catch (Exception e) {
+                _logger.error("Failed to decode a message for {}/{}.", model, message.getId(), e);
+                results[i] = SendingResult.NotHandled;
+            }
+        }
+        return decoded;
+    }
+
+    private void runPartition(String model, List<WorkbenchMessage> messages, Object[] decoded, int[] partition, SendingResult[] results) {
+        ModelMetadata metadata = _models.get(model);
+        if(metadata != null && metadata.getCoalescing() != MessageCoalescing.None) {
+            runCoalescedPartition(metadata, messages, decoded, partition, results);
+            return;
+        }
+        for(int i : partition) {
+            if(results[i] != null) continue;
+            WorkbenchMessage message = messages.get(i);
+            try {
+                Object typed = decoded != null ? decoded[i] : null;
+                results[i] = run(model, message.getId(), null, message.getMessage(), message.getBuffer(), typed) != null ? SendingResult.Handled : SendingResult.Enqueued;
+            } catch (WorkbenchException e) {
+                _logger.error("Failed to process a message for {}/{}.", model, message.getId(), e);
+                results[i] = SendingResult.NotHandled;
+            }
+        }
+    }
+
+    // runs the messages of a partition for each twin as one coalesced message
+    private void runCoalescedPartition(ModelMetadata metadata, List<WorkbenchMessage> messages, Object[] decoded, int[] partition, SendingResult[] results) {
+        LinkedHashMap<String, List<Integer>> twins = new LinkedHashMap<>();
+        for(int i : partition) {
+            if(results[i] != null) continue;
+            twins.computeIfAbsent(messages.get(i).getId(), k -> new ArrayList<>()).add(i);
+        }
+        for(Map.Entry<String, List<Integer>> twin : twins.entrySet()) {
+            List<Integer> indexes = twin.getValue();
+            List<TwinMailbox.PendingMessage> pending = new ArrayList<>(indexes.size());
+            for(int i : indexes) {
+                WorkbenchMessage message = messages.get(i);
+                pending.add(new TwinMailbox.PendingMessage(null, message.getMessage(), message.getBuffer()));
+            }
+            SendingResult result;
+            try {
+                Object typed = decoded != null ? decoded[indexes.get(indexes.size()-1)] : null;
+                result = runCoalesced(metadata, twin.getKey(), pending, typed) != null ? SendingResult.Handled : SendingResult.Enqueued;
+            } catch (WorkbenchException e) {
+                _logger.error("Failed to process messages for {}/{}.", metadata.getName(), twin.getKey(), e);
+                result = SendingResult.NotHandled;
+            }
+            for(int i : indexes) results[i] = result;
+        }
+    }
+
+    private synchronized ExecutorService getMessageService() {
+        if(_messageService == null) {
+            _messageService = Executors.newCachedThreadPool(r -> {
+                Thread t = new Thread(r, "WorkbenchMessage");
+                t.setName(t.getName()+"-"+t.getId());
+                t.setDaemon(true);
+                return t;
+            });
+        }
+        return _messageService;
+    }
+
+    private SimulationStep runModelSteps(SimulationStepArgs args) {
+        if(_parallelModelSteps && _simulationSchedulers.size() > 1) {
+            return runParallelSimulationStep(args);
+        }
         SimulationStep status = null;
         for(Map.Entry<String,SimulationScheduler> entry : _simulationSchedulers.entrySet()) {
             SimulationStep next = entry.getValue().runSimulation(args);
@@ -208,15 +607,108 @@ class TwinExecutionEngine implements Closeable {
         return status;
     }
 
-    HashMap<String, byte[]> getModelData(String model) {
-        HashMap<String, byte[]> sharedData = _modelsSharedData.get(model);
-        if(sharedData == null) sharedData = new HashMap<>();
-        _modelsSharedData.put(model, sharedData);
+    // runs every model's step concurrently; the first model runs on the calling thread and the results are merged in
+    // the same order as a sequential step
+    private SimulationStep runParallelSimulationStep(SimulationStepArgs args) {
+        List<SimulationScheduler> schedulers = new ArrayList<>(_simulationSchedulers.values());
+        List<Future<SimulationStep>> futures = new ArrayList<>(schedulers.size()-1);
+        ExecutorService service = getModelStepService();
+        for(int i = 1; i < schedulers.size(); i++) {
+            SimulationScheduler scheduler = schedulers.get(i);
+            futures.add(service.submit(() -> scheduler.runSimulation(args)));
+        }
+        RuntimeException failure = null;
+        SimulationStep status = null;
+        try {
+            status = schedulers.get(0).runSimulation(args);
+        } catch (RuntimeException e) {
+            failure = e;
+        }
+        for(Future<SimulationStep> f : futures) {
+            try {
+                SimulationStep next = f.get();
+                if(status != null) {
+                    status.merge(next);
+                }
+            } catch (InterruptedException | ExecutionException e) {
+                if(failure == null) failure = new RuntimeException(e);
+            }
+        }
+        if(failure != null) {
+            throw failure;
+        }
+        return status;
+    }
+
+    private synchronized ExecutorService getModelStepService() {
+        if(_modelStepService == null) {
+            _modelStepService = Executors.newCachedThreadPool(r -> {
+                Thread t = new Thread(r, "SimulationModel");
+                t.setName(t.getName()+"-"+t.getId());
+                t.setDaemon(true);
+                return t;
+            });
+        }
+        return _modelStepService;
+    }
+
+    // one virtual thread per task on Java 21 and later, otherwise a pool of at most _simulationEventThreadLimit platform
+    // threads whose idle threads time out
+    synchronized ExecutorService getSimulationEventService() {
+        if(_simulationEventService == null) {
+            try {
+                _simulationEventService = (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            } catch (ReflectiveOperationException e) {
+                ThreadPoolExecutor pool = new ThreadPoolExecutor(_simulationEventThreadLimit, _simulationEventThreadLimit, 60L, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+                    Thread t = new Thread(r, "SimulationEvent");
+                    t.setName(t.getName()+"-"+t.getId());
+                    t.setDaemon(true);
+                    return t;
+                });
+                pool.allowCoreThreadTimeOut(true);
+                _simulationEventService = pool;
+            }
+        }
+        return _simulationEventService;
+    }
+
+    synchronized void setSimulationEventThreadLimit(int limit) {
+        _simulationEventThreadLimit = limit;
+        if(_simulationEventService instanceof ThreadPoolExecutor) {
+            ThreadPoolExecutor pool = (ThreadPoolExecutor) _simulationEventService;
+            // the core size may never exceed the maximum size
+            if(limit > pool.getMaximumPoolSize()) {
+                pool.setMaximumPoolSize(limit);
+                pool.setCorePoolSize(limit);
+            } else {
+                pool.setCorePoolSize(limit);
+                pool.setMaximumPoolSize(limit);
+            }
+        }
+    }
+
+    ConcurrentHashMap<String, byte[]> getModelData(String model) {
+        ConcurrentHashMap<String, byte[]> sharedData = _modelsSharedData.get(model);
+        if(sharedData == null) {
+            sharedData = new ConcurrentHashMap<>();
+            ConcurrentHashMap<String, byte[]> prev = _modelsSharedData.putIfAbsent(model, sharedData);
+            if(prev != null) sharedData = prev;
+        }
         return sharedData;
     }
 
-    HashMap<String, byte[]> getGlobalSharedData() {
-        return _globalSharedData;
+    SharedData getGlobalSharedDataWrapper() {
+        return _globalSharedDataWrapper;
+    }
+
+    void setGlobalSharedDataWrapper(SharedData sharedData) {
+        _globalSharedDataWrapper = sharedData;
+    }
+
+    // the shared data handle of a registered model is created once with the model; other models get a new handle
+    SharedData getModelSharedData(String model) {
+        ModelMetadata metadata = _models.get(model);
+        return metadata != null ? metadata.getSharedDataWrapper() : new WorkbenchSharedData(getModelData(model));
     }
 
 
@@ -266,6 +758,7 @@ class TwinExecutionEngine implements Closeable {
         TwinProxy proxy = modelInstances.remove(id);
         proxy.setProxyState(ProxyState.Removed);
         _modelInstances.put(modelName, modelInstances);
+        retireMailbox(modelName, id);
     }
 
     public CompletableFuture<DeleteResult> deleteRealTimeInstance(String modelName, String id) {
@@ -273,68 +766,312 @@ class TwinExecutionEngine implements Closeable {
         TwinProxy proxy = modelInstances.remove(id);
         proxy.setProxyState(ProxyState.Removed);
         _modelInstances.put(modelName, modelInstances);
+        retireMailbox(modelName, id);
         return CompletableFuture.completedFuture(DeleteResult.Success);
     }
 
+    private void retireMailbox(String model, String id) {
+        ModelMetadata metadata = _models.get(model);
+        TwinMailbox mailbox = metadata != null ? metadata.peekMailbox(id) : null;
+        if(mailbox != null) {
+            retireIfRemoved(metadata, id, mailbox, true);
+        }
+    }
+
+    int getMailboxCount(String model) {
+        ModelMetadata metadata = _models.get(model);
+        return metadata != null ? metadata.getMailboxCount() : 0;
+    }
+
     ProcessingResult run(String model, String id, String source, byte[] message) throws WorkbenchException {
+        return run(model, id, source, message, null);
+    }
+
+    // processes a message on the calling thread, or returns null if another thread is processing a message for the
+    // twin; the message is then queued in the twin's mailbox and processed by that thread. A message is either a byte
+    // array or, when buffer is not null, the remaining bytes of buffer
+    ProcessingResult run(String model, String id, String source, byte[] message, ByteBuffer buffer) throws WorkbenchException {
+        return run(model, id, source, message, buffer, null);
+    }
+
+    // as above; decoded is the already decoded message for a typed model, or null to decode the message when it is
+    // processed
+    private ProcessingResult run(String model, String id, String source, byte[] message, ByteBuffer buffer, Object decoded) throws WorkbenchException {
+        ModelMetadata metadata = _models.get(model);
+        if(metadata == null) {
+            throw new WorkbenchException("Exception thrown while running message processor.",
+                    new WorkbenchException(String.format("DigitalTwin model \"%s\" does not exist on this workbench.", model)));
+        }
+        if(metadata.getCoalescing() != MessageCoalescing.None) {
+            return runCoalesced(metadata, id, Collections.singletonList(new TwinMailbox.PendingMessage(source, message, buffer)), decoded);
+        }
+        TwinMailbox mailbox = metadata.getMailbox(id);
+        if(!mailbox.tryAcquire()) {
+            enqueue(mailbox, source, message, buffer);
+            // the owner may have released the mailbox before seeing the message
+            if(mailbox.tryAcquire()) {
+                drainMailbox(metadata, id, mailbox);
+            } else if(mailbox.isRetired()) {
+                rehome(metadata, id, mailbox, false);
+            }
+            return null;
+        }
         try {
-            ConcurrentHashMap<String,TwinProxy> twinInstances = _modelInstances.get(model);
-            if(twinInstances == null) {
-                twinInstances = new ConcurrentHashMap<>();
+            // messages queued before this thread became the owner run first
+            TwinMailbox.PendingMessage pending;
+            while((pending = mailbox.poll()) != null) {
+                processPending(metadata, id, pending);
             }
+            return process(metadata, id, source, message, buffer, decoded, null);
+        } finally {
+            drainMailbox(metadata, id, mailbox);
+        }
+    }
+
+    // runs messages for one twin of a coalescing model as a single coalesced message together with any messages
+    // pending in the twin's mailbox, or queues them and returns null if another thread owns the mailbox; decoded is
+    // the decoded last message for a typed model, or null
+    private ProcessingResult runCoalesced(ModelMetadata metadata, String id, List<TwinMailbox.PendingMessage> messages, Object decoded) throws WorkbenchException {
+        TwinMailbox mailbox = metadata.getMailbox(id);
+        if(!mailbox.tryAcquire()) {
+            for(TwinMailbox.PendingMessage message : messages) {
+                enqueue(mailbox, message._source, message._message, message._buffer);
+            }
+            if(mailbox.tryAcquire()) {
+                drainMailbox(metadata, id, mailbox);
+            } else if(mailbox.isRetired()) {
+                rehome(metadata, id, mailbox, false);
+            }
+            return null;
+        }
+        try {
+            int queued = 0;
+            List<TwinMailbox.PendingMessage> all = messages;
+            if(!mailbox.isEmpty()) {
+                all = new ArrayList<>();
+                TwinMailbox.PendingMessage pending;
+                while((pending = mailbox.poll()) != null) {
+                    all.add(pending);
+                    queued++;
+                }
+                all.addAll(messages);
+            }
+            try {
+                return coalesce(metadata, id, all, decoded);
+            } finally {
+                for(int i = 0; i < queued; i++) queuedMessageDone();
+            }
+        } finally {
+            drainMailbox(metadata, id, mailbox);
+        }
+    }
+
+    // processes the messages of an acquired mailbox as one coalesced message
+    private void drainCoalesced(ModelMetadata metadata, String id, TwinMailbox mailbox) {
+        List<TwinMailbox.PendingMessage> messages = new ArrayList<>();
+        TwinMailbox.PendingMessage pending;
+        while((pending = mailbox.poll()) != null) {
+            messages.add(pending);
+        }
+        if(messages.isEmpty()) return;
+        try {
+            coalesce(metadata, id, messages, null);
+        } catch (WorkbenchException e) {
+            _logger.error("Failed to process queued messages for {}/{}.", metadata.getName(), id, e);
+        } finally {
+            for(int i = 0; i < messages.size(); i++) queuedMessageDone();
+        }
+    }
+
+    // combines the messages, oldest first, according to the model's coalescing and processes the result
+    private ProcessingResult coalesce(ModelMetadata metadata, String id, List<TwinMailbox.PendingMessage> messages, Object decoded) throws WorkbenchException {
+        TwinMailbox.PendingMessage last = messages.get(messages.size()-1);
+        switch(metadata.getCoalescing()) {
+            case Merge:
+                if(messages.size() == 1) break;
+                byte[] merged;
+                try {
+                    merged = messages.get(0).bytes();
+                    for(int i = 1; i < messages.size(); i++) {
+                        merged = metadata.getMerger().apply(merged, messages.get(i).bytes());
+                    }
+                } catch (RuntimeException e) {
+                    throw new WorkbenchException("Exception thrown while merging messages.", e);
+                }
+                return process(metadata, id, last._source, merged, null, null, null);
+            case Batch:
+                List<byte[]> batch = new ArrayList<>(messages.size());
+                for(TwinMailbox.PendingMessage message : messages) {
+                    batch.add(message.bytes());
+                }
+                return process(metadata, id, last._source, null, null, null, batch);
+            default:
+                break;
+        }
+        return process(metadata, id, last._source, last._message, last._buffer, decoded, null);
+    }
+
+    // processes the queued messages of an acquired mailbox and releases it
+    private void drainMailbox(ModelMetadata metadata, String id, TwinMailbox mailbox) {
+        do {
+            if(metadata.getCoalescing() != MessageCoalescing.None) {
+                drainCoalesced(metadata, id, mailbox);
+            } else {
+                TwinMailbox.PendingMessage pending;
+                while((pending = mailbox.poll()) != null) {
+                    processPending(metadata, id, pending);
+                }
+            }
+            mailbox.release();
+        } while(!mailbox.isEmpty() && mailbox.tryAcquire());
+        retireIfRemoved(metadata, id, mailbox, false);
+    }
+
+    // drains up to DELIVERY_BATCH messages of an acquired mailbox on a message thread, then either releases the
+    // mailbox or hands the rest to a new task so that one busy twin cannot hold a message thread indefinitely
+    private void drainBatch(ModelMetadata metadata, String id, TwinMailbox mailbox) {
+        if(metadata.getCoalescing() != MessageCoalescing.None) {
+            drainCoalesced(metadata, id, mailbox);
+        } else {
+            TwinMailbox.PendingMessage pending;
+            int processed = 0;
+            while(processed < DELIVERY_BATCH && (pending = mailbox.poll()) != null) {
+                processPending(metadata, id, pending);
+                processed++;
+            }
+        }
+        if(!mailbox.isEmpty()) {
+            scheduleDrain(metadata, id, mailbox);
+            return;
+        }
+        mailbox.release();
+        if(!mailbox.isEmpty() && mailbox.tryAcquire()) {
+            scheduleDrain(metadata, id, mailbox);
+            return;
+        }
+        retireIfRemoved(metadata, id, mailbox, true);
+    }
+
+    // retires the mailbox of a twin that no longer exists so that mailboxes do not accumulate for removed twins; a
+    // mailbox owned by another thread is retired when that thread releases it
+    private void retireIfRemoved(ModelMetadata metadata, String id, TwinMailbox mailbox, boolean async) {
+        ConcurrentHashMap<String, TwinProxy> instances = _modelInstances.get(metadata.getName());
+        if(instances != null && instances.containsKey(id)) {
+            return;
+        }
+        if(metadata.retireMailbox(id, mailbox)) {
+            rehome(metadata, id, mailbox, async);
+        }
+    }
+
+    // moves messages that reached a retired mailbox to the twin's current mailbox and makes sure they are processed,
+    // on the calling thread or, if async, on a message thread
+    private void rehome(ModelMetadata metadata, String id, TwinMailbox retired, boolean async) {
+        if(retired.isEmpty()) {
+            return;
+        }
+        TwinMailbox mailbox = metadata.getMailbox(id);
+        TwinMailbox.PendingMessage pending;
+        while((pending = retired.poll()) != null) {
+            mailbox.add(pending);
+        }
+        if(mailbox.tryAcquire()) {
+            if(async) scheduleDrain(metadata, id, mailbox);
+            else drainMailbox(metadata, id, mailbox);
+        } else if(mailbox.isRetired()) {
+            rehome(metadata, id, mailbox, async);
+        }
+    }
+
+    private void scheduleDrain(ModelMetadata metadata, String id, TwinMailbox mailbox) {
+        try {
+            getMessageService().execute(() -> drainBatch(metadata, id, mailbox));
+        } catch (RejectedExecutionException e) {
+            // the workbench is closing; the queued messages are dropped
+            while(mailbox.poll() != null) {
+                queuedMessageDone();
+            }
+            mailbox.release();
+        }
+    }
+
+    private void enqueue(TwinMailbox mailbox, String source, byte[] message, ByteBuffer buffer) {
+        _queuedMessages.incrementAndGet();
+        mailbox.add(source, message, buffer);
+    }
+
+    private void processPending(ModelMetadata metadata, String id, TwinMailbox.PendingMessage pending) {
+        try {
+            process(metadata, id, pending._source, pending._message, pending._buffer, null, null);
+        } catch (WorkbenchException e) {
+            _logger.error("Failed to process a queued message for {}/{}.", metadata.getName(), id, e);
+        } finally {
+            queuedMessageDone();
+        }
+    }
+
+    private void queuedMessageDone() {
+        if(_queuedMessages.decrementAndGet() == 0) {
+            synchronized (_queuedMessagesLock) {
+                _queuedMessagesLock.notifyAll();
+            }
+        }
+    }
+
+    // processes one message, or the batch of messages when batch is not null
+    @SuppressWarnings("unchecked")
+    private ProcessingResult process(ModelMetadata metadata, String id, String source, byte[] message, ByteBuffer buffer, Object decoded, List<byte[]> batch) throws WorkbenchException {
+        String model = metadata.getName();
+        MessageContexts contexts = _messageContexts.get();
+        int depth = contexts.depth();
+        try {
+            ConcurrentHashMap<String,TwinProxy> twinInstances = metadata.getInstances();
             TwinProxy proxy = twinInstances.get(id);
             DigitalTwinBase instance = null;
             if(proxy == null) {
-                Class<? extends DigitalTwinBase> dtClazz = _digitalTwins.get(model);
-                if(dtClazz == null) {
-                    throw new WorkbenchException(String.format("DigitalTwin model \"%s\" does not exist on this workbench.", model));
-                }
-                instance = dtClazz.getConstructor().newInstance();
+                instance = metadata.newInstance();
                 InitContext initContext = new WorkbenchInitContext(this, proxy, model, id);
                 instance.init(initContext);
                 proxy = new TwinProxy(instance, new HashMap<>());
-                SimulationScheduler scheduler = _simulationSchedulers.get(model);
-                if(scheduler != null) {
+                if(metadata.getScheduler() != null) {
                     proxy.setProxyState(ProxyState.Active);
-                    scheduler.addInstance(proxy);
+                    metadata.getScheduler().addInstance(proxy);
                 }
             } else {
                 instance = proxy.getInstance();
             }
-            MessageProcessor mp = _messageProcessors.get(model);
-            HashMap<String, byte[]> sharedData = _modelsSharedData.get(model);
-            if(sharedData == null) sharedData = new HashMap<>();
-            _modelsSharedData.put(model, sharedData);
-            WorkbenchSimulationController simulationController = null;
-            SimulationScheduler scheduler = _simulationSchedulers.get(model);
-            if(scheduler != null) {
-                simulationController = new WorkbenchSimulationController(this, scheduler);
-            }
-            WorkbenchProcessingContext context = new WorkbenchProcessingContext(_workbench._twinExecutionEngine, sharedData, _globalSharedData, simulationController);
-            context.reset(model, id, source, proxy);
-            if(simulationController != null) {
-                simulationController.reset(model, id);
-            }
+            WorkbenchProcessingContext context = contexts.push(this, metadata, id, source, proxy);
 
-            ProcessingResult res = mp.processMessage(context, instance, message);
+            MessageProcessor mp = metadata.getMessageProcessor();
+            ProcessingResult res;
+            if(batch != null) {
+                res = mp.processMessages(context, instance, batch);
+            } else if(metadata.getCodec() != null) {
+                Object typed = decoded != null ? decoded : metadata.decode(message, buffer);
+                res = ((TypedMessageProcessor) mp).processTypedMessage(context, instance, typed);
+            } else {
+                res = buffer != null ? mp.processMessage(context, instance, buffer) : mp.processMessage(context, instance, message);
+            }
             if(context.forceSave()) res = ProcessingResult.UpdateDigitalTwin;
             switch(res) {
                 case UpdateDigitalTwin:
                     proxy.setInstance(instance);
-                    twinInstances.put(id, proxy);
-                    _modelInstances.put(model, twinInstances);
+                    if(twinInstances.get(id) != proxy) {
+                        twinInstances.put(id, proxy);
+                    }
                     break;
                 case NoUpdate:
                     break;
                 case Remove:
                     twinInstances.remove(id);
-                    _modelInstances.put(model, twinInstances);
                 default:
                     break;
             }
             return res;
         } catch (Exception e) {
             throw new WorkbenchException("Exception thrown while running message processor.", e);
+        } finally {
+            contexts.release(depth);
         }
     }
 
@@ -347,5 +1084,101 @@ class TwinExecutionEngine implements Closeable {
             }
             _realTimeTimers = null;
         }
+        if(_simulationSchedulers != null) {
+            for(SimulationScheduler scheduler : _simulationSchedulers.values()) {
+                scheduler.close();
+            }
+        }
+        synchronized (this) {
+            if(_modelStepService != null) {
+                _modelStepService.shutdown();
+                _modelStepService = null;
+            }
+            if(_simulationEventService != null) {
+                _simulationEventService.shutdown();
+                _simulationEventService = null;
+            }
+            if(_messageService != null) {
+                _messageService.shutdown();
+                _messageService = null;
+            }
+            if(_sharedSimulationService != null) {
+                _sharedSimulationService.shutdown();
+                _sharedSimulationService = null;
+            }
+        }
+    }
+
+    // the processing contexts of one thread; run re-enters when a message processor sends to another twin, so every
+    // nesting level has its own context and simulation controller
+    private static final class MessageContexts {
+        private WorkbenchProcessingContext[]    _contexts       = new WorkbenchProcessingContext[4];
+        private WorkbenchSimulationController[] _controllers    = new WorkbenchSimulationController[4];
+        private int                             _depth;
+
+        WorkbenchProcessingContext push(TwinExecutionEngine engine, ModelMetadata metadata, String id, String source, TwinProxy proxy) {
+            if(_depth == _contexts.length) {
+                _contexts       = Arrays.copyOf(_contexts, _depth * 2);
+                _controllers    = Arrays.copyOf(_controllers, _depth * 2);
+            }
+            WorkbenchProcessingContext context = _contexts[_depth];
+            if(context == null) {
+                _controllers[_depth]    = new WorkbenchSimulationController(engine, null);
+                context                 = new WorkbenchProcessingContext(engine, null);
+                _contexts[_depth]       = context;
+            }
+            WorkbenchSimulationController controller = null;
+            if(metadata.getScheduler() != null) {
+                controller = _controllers[_depth];
+                controller.reset(metadata.getScheduler(), metadata.getName(), id);
+            }
+            context.reset(metadata, id, source, proxy, controller);
+            _depth++;
+            return context;
+        }
+
+        int depth() {
+            return _depth;
+        }
+
+        // returns to the given nesting level and drops the released context's reference to its twin
+        void release(int depth) {
+            if(_depth > depth) {
+                _contexts[depth].resetProxy(null);
+            }
+            _depth = depth;
+        }
+    }
+
+    private static class InboundMessage {
+        final String        _model;
+        final String        _id;
+        final byte[]        _message;
+        final ByteBuffer    _buffer;
+        final long          _timestamp;
+
+        InboundMessage(String model, String id, byte[] message, ByteBuffer buffer, long timestamp) {
+            _model      = model;
+            _id         = id;
+            _message    = message;
+            _buffer     = buffer;
+            _timestamp  = timestamp;
+        }
+    }
+
+    private static class DeferredSend {
+        final String        _model;
+        final String        _id;
+        final String        _source;
+        final byte[]        _message;
+        final ByteBuffer    _buffer;
+
+        DeferredSend(String model, String id, String source, byte[] message, ByteBuffer buffer) {
+            _model      = model;
+            _id         = id;
+            _source     = source;
+            _message    = message;
+            _buffer     = buffer;
+        }
     }
 }
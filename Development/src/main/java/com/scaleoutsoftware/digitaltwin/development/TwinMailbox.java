@@ -0,0 +1,89 @@
+/*
+ Copyright (c) 2026 by ScaleOut Software, Inc.
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+*/
+package com.scaleoutsoftware.digitaltwin.development;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Serializes the messages of one digital twin instance. The thread that acquires the mailbox processes messages for
+ * the twin until the mailbox is empty; messages sent while the twin is owned by another thread are queued for the
+ * owner. Once the twin is removed, an idle mailbox is retired: it can never be acquired again, and messages that
+ * reach it afterwards are moved to the twin's new mailbox.
+ */
+class TwinMailbox {
+    private static final int                            FREE        = 0;
+    private static final int                            OWNED       = 1;
+    private static final int                            RETIRED     = 2;
+    private final AtomicInteger                         _state      = new AtomicInteger(FREE);
+    private final ConcurrentLinkedQueue<PendingMessage> _pending    = new ConcurrentLinkedQueue<>();
+
+    boolean tryAcquire() {
+        return _state.compareAndSet(FREE, OWNED);
+    }
+
+    void release() {
+        _state.set(FREE);
+    }
+
+    boolean tryRetire() {
+        return _state.compareAndSet(FREE, RETIRED);
+    }
+
+    boolean isRetired() {
+        return _state.get() == RETIRED;
+    }
+
+    void add(String source, byte[] message, ByteBuffer buffer) {
+        _pending.add(new PendingMessage(source, message, buffer));
+    }
+
+    void add(PendingMessage message) {
+        _pending.add(message);
+    }
+
+    PendingMessage poll() {
+        return _pending.poll();
+    }
+
+    boolean isEmpty() {
+        return _pending.isEmpty();
+    }
+
+    static final class PendingMessage {
+        final String        _source;
+        final byte[]        _message;
+        final ByteBuffer    _buffer;
+
+        PendingMessage(String source, byte[] message, ByteBuffer buffer) {
+            _source     = source;
+            _message    = message;
+            _buffer     = buffer;
+        }
+
+        // the message as a byte array; a buffer's remaining bytes are copied unless they are its whole backing array
+        byte[] bytes() {
+            if(_buffer == null) return _message;
+            if(_buffer.hasArray() && _buffer.arrayOffset() == 0 && _buffer.position() == 0 && _buffer.remaining() == _buffer.array().length) {
+                return _buffer.array();
+            }
+            byte[] bytes = new byte[_buffer.remaining()];
+            _buffer.duplicate().get(bytes);
+            return bytes;
+        }
+    }
+}
@@ -0,0 +1,34 @@
+/*
+ Copyright (c) 2026 by ScaleOut Software, Inc.
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+*/
+package com.scaleoutsoftware.digitaltwin.development;
+
+/**
+ * Determines how messages that digital twins send to other digital twins are delivered.
+ */
+public enum TwinMessageDelivery {
+    /**
+     * The message is processed by the target twin on the sending thread before the send returns. This is the
+     * default delivery.
+     */
+    Synchronous,
+    /**
+     * The message is queued in the target twin's mailbox and the send returns {@link
+     * com.scaleoutsoftware.digitaltwin.abstractions.SendingResult#Enqueued}. Mailboxes are drained in batches by the
+     * workbench's message threads, so chains of sends do not grow the sender's stack and cyclic sends between twins
+     * cannot overflow it.
+     */
+    Queued
+}
@@ -18,9 +18,16 @@ package com.scaleoutsoftware.digitaltwin.development;
 import com.scaleoutsoftware.digitaltwin.abstractions.*;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.time.Duration;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BinaryOperator;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * The Workbench is used to represent an environment where developers can test real-time and simulated digital twins.
@@ -258,7 +265,10 @@ public class Workbench implements AutoCloseable {
     private long _curTime, _endTime, _interval;
     private long _now, _next;
     private SimulationStep _result = null;
-    private boolean _simulationStarted = false;
+    private volatile boolean _simulationStarted = false;
+    // senders enqueue under the read lock; stopping a simulation clears _simulationStarted under the write lock
+    private final ReentrantReadWriteLock _inboundLock = new ReentrantReadWriteLock();
+    private int _lookaheadIntervals = 1;
     private int _numWorkers = Runtime.getRuntime().availableProcessors();
 
 
@@ -277,6 +287,7 @@ public class Workbench implements AutoCloseable {
         _twinExecutionEngine = new TwinExecutionEngine(this);
         if(_numWorkers <= 0) throw new IllegalArgumentException("numSimulationWorkers must be greater-than 0.");
         _numWorkers = numSimulationWorkers;
+        _twinExecutionEngine.setMessagePartitions(numSimulationWorkers);
     }
 
 
@@ -295,7 +306,28 @@ public class Workbench implements AutoCloseable {
             String errorMessage = String.format("modelName null: %b messageProcessor null: %b dtType null: %b",modelName == null, digitalTwinMessageProcessor == null, dtType == null);
             throw new WorkbenchException(new IllegalArgumentException("All parameters required. Found null parameter.\n" + errorMessage));
         }
-        _twinExecutionEngine.addDigitalTwin(modelName, digitalTwinMessageProcessor, dtType);
+        _twinExecutionEngine.addDigitalTwin(modelName, digitalTwinMessageProcessor, dtType, null);
+    }
+
+    /**
+     * Adds a real-time digital twin model to the workbench that creates new instances with a factory instead of the
+     * digital twin implementation's parameterless constructor.
+     *
+     * @param modelName the name of the model.
+     * @param digitalTwinMessageProcessor the model's {@link MessageProcessor} implementation. Must be marked as {@link Serializable}.
+     * @param dtType the model's {@link DigitalTwinBase} implementation.
+     * @param factory creates a new, uninitialized instance when a message arrives for an instance that does not exist.
+     * @param <T> the type of the digital twin.
+     * @throws WorkbenchException if any of the parameters are null or the model does not pass validation (the message
+     *  processor must be serializable).
+     */
+    public <T extends DigitalTwinBase<T>> void addRealTimeModel(String modelName, MessageProcessor<T> digitalTwinMessageProcessor, Class<T> dtType, Supplier<T> factory) throws WorkbenchException {
+        if(factory == null) throw new WorkbenchException(new IllegalArgumentException("All parameters required. Found null parameter.\nfactory null: true"));
+        if(modelName == null || modelName.isEmpty() || digitalTwinMessageProcessor == null || dtType == null) {
+            String errorMessage = String.format("modelName null: %b messageProcessor null: %b dtType null: %b",modelName == null, digitalTwinMessageProcessor == null, dtType == null);
+            throw new WorkbenchException(new IllegalArgumentException("All parameters required. Found null parameter.\n" + errorMessage));
+        }
+        _twinExecutionEngine.addDigitalTwin(modelName, digitalTwinMessageProcessor, dtType, factory);
     }
 
     /**
@@ -314,7 +346,288 @@ public class Workbench implements AutoCloseable {
             String errorMessage = String.format("modelName null: %b messageProcessor null: %b simulationProcessor null: %b dtType null: %b",modelName == null, digitalTwinMessageProcessor == null, simulationProcessor == null, dtType == null);
             throw new WorkbenchException(new IllegalArgumentException("All parameters required. Found null parameter.\n" + errorMessage));
         }
-        _twinExecutionEngine.addDigitalTwin(modelName, digitalTwinMessageProcessor, simulationProcessor, dtType, _numWorkers);
+        _twinExecutionEngine.addDigitalTwin(modelName, digitalTwinMessageProcessor, simulationProcessor, dtType, null, _numWorkers);
+    }
+
+    /**
+     * Adds a simulation digital twin model to the workbench that creates new instances with a factory instead of the
+     * digital twin implementation's parameterless constructor.
+     *
+     * @param modelName the name of the model.
+     * @param digitalTwinMessageProcessor the model's {@link MessageProcessor} implementation. Must be marked as {@link Serializable}.
+     * @param simulationProcessor the model's {@link SimulationProcessor} implementation. Must be marked as {@link Serializable}.
+     * @param dtType the model's {@link DigitalTwinBase} implementation.
+     * @param factory creates a new, uninitialized instance when a message arrives for an instance that does not exist.
+     * @param <T> the type of the digital twin.
+     * @throws WorkbenchException if any of the parameters are null or the model does not pass validation (the message
+     *  processor must be serializable).
+     */
+    public <T extends DigitalTwinBase<T>> void addSimulationModel(String modelName, MessageProcessor<T> digitalTwinMessageProcessor, SimulationProcessor<T> simulationProcessor, Class<T> dtType, Supplier<T> factory) throws WorkbenchException {
+        if(factory == null) throw new WorkbenchException(new IllegalArgumentException("All parameters required. Found null parameter.\nfactory null: true"));
+        if(modelName == null || modelName.isEmpty() || digitalTwinMessageProcessor == null || simulationProcessor == null || dtType == null) {
+            String errorMessage = String.format("modelName null: %b messageProcessor null: %b simulationProcessor null: %b dtType null: %b",modelName == null, digitalTwinMessageProcessor == null, simulationProcessor == null, dtType == null);
+            throw new WorkbenchException(new IllegalArgumentException("All parameters required. Found null parameter.\n" + errorMessage));
+        }
+        _twinExecutionEngine.addDigitalTwin(modelName, digitalTwinMessageProcessor, simulationProcessor, dtType, factory, _numWorkers);
+    }
+
+    /**
+     * Sets how the simulation workers of every simulation model are dispatched for each simulation step. The default
+     * is {@link SimulationExecutionMode#Pooled}. The {@link SimulationExecutionMode#Persistent} and
+     * {@link SimulationExecutionMode#WorkStealing} modes run each simulation worker on its own dedicated thread and
+     * cannot be combined with {@link Workbench#useSharedSimulationThreadPool(int)}.
+     *
+     * @param mode the simulation execution mode.
+     * @throws WorkbenchException if the mode is null, if a simulation is already running, or if the mode is
+     * {@link SimulationExecutionMode#Persistent} or {@link SimulationExecutionMode#WorkStealing} and a shared simulation
+     * thread pool has been created.
+     */
+    public void setSimulationExecutionMode(SimulationExecutionMode mode) throws WorkbenchException {
+        if(mode == null) throw new WorkbenchException(new IllegalArgumentException("Simulation execution mode is required."));
+        if(_simulationStarted) throw new WorkbenchException("Cannot change the simulation execution mode while simulation is active.");
+        if(usesDedicatedThreads(mode) && _twinExecutionEngine.getSharedSimulationService() != null) {
+            throw new WorkbenchException(String.format("The %s execution mode cannot use the shared simulation thread pool.", mode));
+        }
+        _twinExecutionEngine.setSimulationExecutionMode(mode);
+    }
+
+    /**
+     * Enables or disables running the simulation step of every simulation model concurrently. When enabled, each step
+     * dispatches all simulation models in parallel and merges their {@link SimulationStep} results once every model
+     * has completed the step, so the latency of a step is that of the slowest model rather than the sum of all
+     * models. Disabled by default.
+     *
+     * @param enabled true to step simulation models concurrently.
+     * @throws WorkbenchException if a simulation is already running.
+     */
+    public void setParallelModelSteps(boolean enabled) throws WorkbenchException {
+        if(_simulationStarted) throw new WorkbenchException("Cannot change parallel model steps while simulation is active.");
+        _twinExecutionEngine.setParallelModelSteps(enabled);
+    }
+
+    /**
+     * Sets the maximum number of platform threads that run twins in the {@link SimulationExecutionMode#VirtualThreads}
+     * mode on runtimes without virtual threads (before Java 21). The threads are shared by every simulation model, and
+     * twins beyond the limit wait for a thread, so the limit caps how many twins can block at the same time. Defaults to
+     * 4 threads per available processor, and at least 16. On Java 21 and later each twin runs on its own virtual thread
+     * and the limit is not used.
+     *
+     * @param limit the maximum number of simulation event threads.
+     * @throws WorkbenchException if limit is not greater-than 0 or if a simulation is already running.
+     */
+    public void setSimulationEventThreadLimit(int limit) throws WorkbenchException {
+        if(limit <= 0) throw new WorkbenchException(new IllegalArgumentException("limit must be greater-than 0."));
+        if(_simulationStarted) throw new WorkbenchException("Cannot change the simulation event thread limit while simulation is active.");
+        _twinExecutionEngine.setSimulationEventThreadLimit(limit);
+    }
+
+    /**
+     * Sets the data structure the simulation workers use to order pending simulation events. The default queue type
+     * is {@link SimulationEventQueueType#Heap}. Events that are already queued are moved to the new queue.
+     *
+     * @param type the simulation event queue type.
+     * @throws WorkbenchException if the type is null or if a simulation is already running.
+     */
+    public void setSimulationEventQueue(SimulationEventQueueType type) throws WorkbenchException {
+        if(type == null) throw new WorkbenchException(new IllegalArgumentException("Simulation event queue type is required."));
+        if(_simulationStarted) throw new WorkbenchException("Cannot change the simulation event queue while simulation is active.");
+        _twinExecutionEngine.setSimulationEventQueueType(type);
+    }
+
+    /**
+     * Enables adaptive rebalancing of twins across simulation workers. Twins are assigned to a simulation worker by
+     * hashing their identifier; with rebalancing enabled the workbench measures the processing time of every twin and,
+     * every stepInterval simulation steps, moves twins from the busiest worker to the least busy worker when the
+     * busiest worker's load exceeds imbalanceThreshold times the mean worker load. Twins are only moved between
+     * simulation steps. Twins with running timers are not moved. Disabled by default.
+     *
+     * @param stepInterval the number of simulation steps between rebalance checks, or 0 to disable rebalancing.
+     * @param imbalanceThreshold the ratio of the busiest worker's load to the mean worker load that triggers a
+     *                           rebalance; must be at least 1.0.
+     * @throws WorkbenchException if stepInterval is negative, if imbalanceThreshold is less-than 1.0, or if a
+     * simulation is already running.
+     */
+    public void setSimulationRebalancing(int stepInterval, double imbalanceThreshold) throws WorkbenchException {
+        if(stepInterval < 0) throw new WorkbenchException(new IllegalArgumentException("stepInterval must not be negative."));
+        if(!(imbalanceThreshold >= 1.0)) throw new WorkbenchException(new IllegalArgumentException("imbalanceThreshold must be at least 1.0."));
+        if(_simulationStarted) throw new WorkbenchException("Cannot change simulation rebalancing while simulation is active.");
+        _twinExecutionEngine.setSimulationRebalancing(stepInterval, imbalanceThreshold);
+    }
+
+    /**
+     * Sets the number of simulation intervals that each simulation step may run ahead. With a lookahead of more than
+     * one interval, every simulation worker processes its twins for up to intervals time slices before waiting for
+     * the other workers, instead of waiting after every time slice. Messages sent between twins during a lookahead
+     * window are delivered when the window completes and report {@link SendingResult#Enqueued}, so a twin never
+     * observes a message from a twin that is further ahead in the window. The window never extends past the simulation
+     * end time. Defaults to 1, which runs one interval per simulation step.
+     *
+     * @param intervals the number of simulation intervals per simulation step; must be at least 1.
+     * @throws WorkbenchException if intervals is less-than 1 or if a simulation is already running.
+     */
+    public void setSimulationLookahead(int intervals) throws WorkbenchException {
+        if(intervals < 1) throw new WorkbenchException(new IllegalArgumentException("intervals must be at least 1."));
+        if(_simulationStarted) throw new WorkbenchException("Cannot change the simulation lookahead while simulation is active.");
+        _lookaheadIntervals = intervals;
+    }
+
+    /**
+     * Sets the capacity of the queue that holds messages sent to the workbench while a simulation is running. Senders
+     * wait while the queue is full until the next simulation step delivers the queued messages, for at most 5 seconds.
+     * Defaults to 65536.
+     *
+     * @param capacity the maximum number of queued messages.
+     * @throws WorkbenchException if capacity is not greater-than 0, if a simulation is already running, or if the queue
+     * still holds messages.
+     * @see Workbench#setSimulationInboundCapacity(int, Duration)
+     */
+    public void setSimulationInboundCapacity(int capacity) throws WorkbenchException {
+        setSimulationInboundCapacity(capacity, Duration.ofMillis(TwinExecutionEngine.DEFAULT_INBOUND_TIMEOUT_MS));
+    }
+
+    /**
+     * Sets the capacity of the queue that holds messages sent to the workbench while a simulation is running, and how
+     * long a sender waits while the queue is full. A message that cannot be queued within the timeout is not
+     * delivered, and the sender receives {@link SendingResult#NotHandled}. A zero timeout fails immediately, which
+     * suits a thread that both sends messages and calls {@link Workbench#step()}, since that thread cannot free space
+     * in the queue while it waits.
+     *
+     * @param capacity the maximum number of queued messages.
+     * @param timeout how long a sender waits for space in a full queue.
+     * @throws WorkbenchException if capacity is not greater-than 0, if timeout is null or negative, if a simulation is
+     * already running, or if the queue still holds messages.
+     */
+    public void setSimulationInboundCapacity(int capacity, Duration timeout) throws WorkbenchException {
+        if(capacity <= 0) throw new WorkbenchException(new IllegalArgumentException("capacity must be greater-than 0."));
+        if(timeout == null || timeout.isNegative()) throw new WorkbenchException(new IllegalArgumentException("timeout must not be null or negative."));
+        if(_simulationStarted) throw new WorkbenchException("Cannot change the inbound capacity while simulation is active.");
+        if(!_twinExecutionEngine.setInboundCapacity(capacity, timeout.toMillis())) {
+            throw new WorkbenchException("Cannot change the inbound capacity while messages are queued.");
+        }
+    }
+
+    /**
+     * Sets how messages that digital twins send to other digital twins, with
+     * {@link ProcessingContext#sendToDigitalTwin(String, String, byte[])} or
+     * {@link SimulationController#emitTelemetry(String, byte[])}, are delivered. The default delivery is
+     * {@link TwinMessageDelivery#Synchronous}. With {@link TwinMessageDelivery#Queued} delivery every simulation step
+     * waits for the queued messages before it completes; use {@link Workbench#awaitQueuedMessages()} to wait for them
+     * outside of a simulation.
+     *
+     * @param delivery the twin message delivery.
+     * @throws WorkbenchException if delivery is null or if a simulation is already running.
+     */
+    public void setTwinMessageDelivery(TwinMessageDelivery delivery) throws WorkbenchException {
+        if(delivery == null) throw new WorkbenchException(new IllegalArgumentException("Twin message delivery is required."));
+        if(_simulationStarted) throw new WorkbenchException("Cannot change the twin message delivery while simulation is active.");
+        _twinExecutionEngine.setTwinMessageDelivery(delivery);
+    }
+
+    /**
+     * Sets when the shared data writes that digital twins make during a simulation step become visible. The default is
+     * {@link SharedDataIsolation#None}. With {@link SharedDataIsolation#StepSnapshot} the twins of every model read the
+     * model and global shared data as it was at the start of the step, and their writes are published when the step
+     * completes. Writes made through {@link Workbench#getSharedModelData(String)} and
+     * {@link Workbench#getSharedGlobalData()} are not buffered.
+     *
+     * @param isolation the shared data isolation.
+     * @throws WorkbenchException if isolation is null or if a simulation is already running.
+     */
+    public void setSharedDataIsolation(SharedDataIsolation isolation) throws WorkbenchException {
+        if(isolation == null) throw new WorkbenchException(new IllegalArgumentException("Shared data isolation is required."));
+        if(_simulationStarted) throw new WorkbenchException("Cannot change the shared data isolation while simulation is active.");
+        _twinExecutionEngine.setSharedDataIsolation(isolation);
+    }
+
+    /**
+     * Sets how the pending messages of each twin of a model are coalesced before they are processed. The default is
+     * {@link MessageCoalescing#None}. Use {@link Workbench#setMessageCoalescing(String, BinaryOperator)} for
+     * {@link MessageCoalescing#Merge}.
+     *
+     * @param modelName the model name.
+     * @param coalescing the message coalescing.
+     * @throws WorkbenchException if the model does not exist, if coalescing is null or {@link MessageCoalescing#Merge},
+     * if coalescing is {@link MessageCoalescing#Batch} and the model's processor is a {@link TypedMessageProcessor}, or
+     * if a simulation is already running.
+     */
+    public void setMessageCoalescing(String modelName, MessageCoalescing coalescing) throws WorkbenchException {
+        if(coalescing == null) throw new WorkbenchException(new IllegalArgumentException("Message coalescing is required."));
+        if(coalescing == MessageCoalescing.Merge) throw new WorkbenchException(new IllegalArgumentException("Merge coalescing requires a merge function."));
+        if(_simulationStarted) throw new WorkbenchException("Cannot change the message coalescing while simulation is active.");
+        _twinExecutionEngine.setMessageCoalescing(modelName, coalescing, null);
+    }
+
+    /**
+     * Coalesces the pending messages of each twin of a model with a merge function
+     * ({@link MessageCoalescing#Merge}). The function is applied to the pending messages oldest first; its first
+     * argument is the result so far and its second argument is the next message.
+     *
+     * @param modelName the model name.
+     * @param merger the merge function.
+     * @throws WorkbenchException if the model does not exist, if merger is null, or if a simulation is already running.
+     */
+    public void setMessageCoalescing(String modelName, BinaryOperator<byte[]> merger) throws WorkbenchException {
+        if(merger == null) throw new WorkbenchException(new IllegalArgumentException("Merge function is required."));
+        if(_simulationStarted) throw new WorkbenchException("Cannot change the message coalescing while simulation is active.");
+        _twinExecutionEngine.setMessageCoalescing(modelName, MessageCoalescing.Merge, merger);
+    }
+
+    /**
+     * Waits until every message queued in a digital twin's mailbox has been processed.
+     *
+     * @throws WorkbenchException if the calling thread is interrupted while waiting.
+     */
+    public void awaitQueuedMessages() throws WorkbenchException {
+        try {
+            _twinExecutionEngine.awaitQueuedMessages();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new WorkbenchException(e);
+        }
+    }
+
+    /**
+     * Retrieves the rebalance metrics of a simulation model.
+     *
+     * @param modelName the simulation model name.
+     * @return the {@link SimulationRebalanceMetrics} of the model.
+     * @throws WorkbenchException if the model is not a simulation model.
+     */
+    public SimulationRebalanceMetrics getSimulationRebalanceMetrics(String modelName) throws WorkbenchException {
+        SimulationRebalanceMetrics metrics = _twinExecutionEngine.getRebalanceMetrics(modelName);
+        if(metrics == null) throw new WorkbenchException(String.format("Model %s is not a simulation model.", modelName));
+        return metrics;
+    }
+
+    /**
+     * Creates a single simulation thread pool that the simulation workers of every simulation model share. Without a
+     * shared pool each simulation model creates its own pool with one thread per simulation worker, so the number of
+     * simulation threads grows with the number of simulation models. The shared pool can only be sized once per
+     * workbench.
+     * <p>
+     * The shared pool is used by the {@link SimulationExecutionMode#Pooled} and
+     * {@link SimulationExecutionMode#VirtualThreads} execution modes. The
+     * {@link SimulationExecutionMode#Persistent} and {@link SimulationExecutionMode#WorkStealing} modes keep one
+     * dedicated thread per simulation worker, so the shared pool cannot be combined with them.
+     * </p>
+     *
+     * @param numThreads the number of threads in the shared simulation pool.
+     * @throws WorkbenchException if numThreads is not greater-than 0, if the shared pool was already created, if a
+     * simulation is already running, or if the simulation execution mode is {@link SimulationExecutionMode#Persistent}
+     * or {@link SimulationExecutionMode#WorkStealing}.
+     */
+    public void useSharedSimulationThreadPool(int numThreads) throws WorkbenchException {
+        if(numThreads <= 0) throw new WorkbenchException(new IllegalArgumentException("numThreads must be greater-than 0."));
+        if(_simulationStarted) throw new WorkbenchException("Cannot create a shared simulation thread pool while simulation is active.");
+        SimulationExecutionMode mode = _twinExecutionEngine.getSimulationExecutionMode();
+        if(usesDedicatedThreads(mode)) {
+            throw new WorkbenchException(String.format("The %s execution mode cannot use the shared simulation thread pool.", mode));
+        }
+        if(!_twinExecutionEngine.createSharedSimulationService(numThreads)) throw new WorkbenchException("The shared simulation thread pool has already been created.");
+    }
+
+    private static boolean usesDedicatedThreads(SimulationExecutionMode mode) {
+        return mode == SimulationExecutionMode.Persistent || mode == SimulationExecutionMode.WorkStealing;
     }
 
     /**
@@ -366,14 +679,15 @@ public class Workbench implements AutoCloseable {
         _simulationStarted = true;
         SimulationStep ret, result = null;
         SimulationStepArgs args;
-        long now, curTime, start, end, deltaTm, delta, wait, numItv;
+        long now, curTime, start, end, deltaTm, delta, wait, numItv, span;
         args = new SimulationStepArgs(startTime, interval, WorkbenchSimulationFlags.Start);
         _twinExecutionEngine.runSimulationStep(args);
         SimulationStatus status = SimulationStatus.Running;
         now = curTime = startTime;
         while(status == SimulationStatus.Running &&
               curTime < endTime) {
-            args    = new SimulationStepArgs(curTime, interval, WorkbenchSimulationFlags.Run);
+            args    = new SimulationStepArgs(curTime, interval, WorkbenchSimulationFlags.Run, windowEnd(curTime, interval, endTime));
+            span    = args.getWindowEnd() - curTime;
             now     = curTime;
             start   = System.currentTimeMillis();
             result  = _twinExecutionEngine.runSimulationStep(args);
@@ -382,7 +696,7 @@ public class Workbench implements AutoCloseable {
             numItv  = delta/interval;
             numItv  = numItv > 0 ? delta%numItv != 0 ? numItv+1 : numItv : numItv;
             deltaTm = end-start;
-            wait    = deltaTm >= interval ? 0L : (long)((interval-deltaTm)/speedup);
+            wait    = deltaTm >= span ? 0L : (long)((span-deltaTm)/speedup);
             status  = result.getStatus();
             curTime = curTime+(numItv*interval);
             try {
@@ -393,12 +707,10 @@ public class Workbench implements AutoCloseable {
         }
         if(curTime >= endTime) {
             ret = new SimulationStep(SimulationStatus.EndTimeReached, curTime);
-            _twinExecutionEngine.setSimulationStatus(false);
-            _simulationStarted = false;
+            stopSimulation();
         } else {
             ret = new SimulationStep(result.getStatus(), now);
-            _twinExecutionEngine.setSimulationStatus(false);
-            _simulationStarted = false;
+            stopSimulation();
         }
         return ret;
     }
@@ -434,11 +746,10 @@ public class Workbench implements AutoCloseable {
         SimulationStatus status = _result.getStatus();
         if(status == SimulationStatus.Running ) {
             if(_curTime >= _endTime) {
-                _simulationStarted = false;
-                _twinExecutionEngine.setSimulationStatus(false);
+                stopSimulation();
                 return new SimulationStep(SimulationStatus.EndTimeReached, _curTime);
             }
-            SimulationStepArgs args = new SimulationStepArgs(_curTime, _interval, WorkbenchSimulationFlags.Run);
+            SimulationStepArgs args = new SimulationStepArgs(_curTime, _interval, WorkbenchSimulationFlags.Run, windowEnd(_curTime, _interval, _endTime));
             _now        = _curTime;
             _result     = _twinExecutionEngine.runSimulationStep(args);
             delta       = _result.getTime() - _curTime;
@@ -448,12 +759,36 @@ public class Workbench implements AutoCloseable {
             _next       = _curTime;
             return new SimulationStep(_result.getStatus(), _now);
         } else {
-            _simulationStarted = false;
-            _twinExecutionEngine.setSimulationStatus(false);
+            stopSimulation();
             throw new WorkbenchException("Simulation is inactive. Simulation status: " + _result.getStatus());
         }
     }
 
+    // for tests: the number of twin mailboxes a model currently holds
+    int getMailboxCount(String model) {
+        return _twinExecutionEngine.getMailboxCount(model);
+    }
+
+    // stops queueing inbound messages and delivers every queued message. The first drain frees senders waiting on a full
+    // queue; once _simulationStarted is cleared under the write lock no sender can queue, so the second drain leaves the
+    // queue empty.
+    private void stopSimulation() {
+        _twinExecutionEngine.setSimulationStatus(false);
+        _twinExecutionEngine.drainInboundMessages();
+        _inboundLock.writeLock().lock();
+        try {
+            _simulationStarted = false;
+        } finally {
+            _inboundLock.writeLock().unlock();
+        }
+        _twinExecutionEngine.drainInboundMessages();
+    }
+
+    // the end of the lookahead window that starts at curTime; always covers at least one interval
+    private long windowEnd(long curTime, long interval, long endTime) {
+        return Math.max(curTime + interval, Math.min(curTime + _lookaheadIntervals * interval, endTime));
+    }
+
     /**
      * Retrieves the current time interval of the simulation.
      * @return a {@link Date} representation for the current interval time for the simulation.
@@ -551,7 +886,7 @@ public class Workbench implements AutoCloseable {
      */
     public SharedData getSharedModelData(String model) throws WorkbenchException {
         if(_twinExecutionEngine.hasModel(model)) {
-            return new WorkbenchSharedData(_twinExecutionEngine.getModelData(model));
+            return _twinExecutionEngine.getModelSharedData(model);
         } else {
             throw new WorkbenchException("Workbench does not contain model " + model);
         }
@@ -563,31 +898,165 @@ public class Workbench implements AutoCloseable {
      * @throws WorkbenchException if an exception occurs while creating the working shared data.
      */
     public SharedData getSharedGlobalData() throws WorkbenchException {
-        return new WorkbenchSharedData(_twinExecutionEngine.getGlobalSharedData());
+        return _twinExecutionEngine.getGlobalSharedDataWrapper();
     }
 
     /**
-     * Send a list of messages to a real-time or simulation model.
+     * Send a list of messages to a real-time or simulation model. Send may be called from multiple threads; each
+     * instance processes one message at a time, and a message sent while another thread is processing a message for
+     * the same instance is queued and processed by that thread.
+     * <p>
+     * While a simulation is running, messages are time-stamped and queued, and are delivered at the start of the next
+     * simulation step or when the simulation stops. The queue is bounded (see
+     * {@link Workbench#setSimulationInboundCapacity(int, Duration)}); send waits for space while the queue is full, up
+     * to the configured timeout.
+     * </p>
      * @param modelName The model name.
      * @param id the instance id.
      * @param message the message to send.
-     * @return {@link SendingResult#Handled} unless an exception is thrown.
-     * @throws WorkbenchException if model name, id, or messages are null. Also thrown if the model's {@link MessageProcessor#processMessage(ProcessingContext, DigitalTwinBase, byte[])}
-     * throws an exception.
+     * @return {@link SendingResult#Handled} if the message was processed on the calling thread, or
+     * {@link SendingResult#Enqueued} if it was queued for the thread processing the instance or for the next
+     * simulation step, or {@link SendingResult#NotHandled} if the simulation's inbound queue stayed full for the
+     * configured timeout.
+     * @throws WorkbenchException if model name, id, or messages are null, if the model does not exist, or if the
+     * calling thread is interrupted while waiting for queue capacity. Also thrown if the model's
+     * {@link MessageProcessor#processMessage(ProcessingContext, DigitalTwinBase, byte[])} throws an exception.
      */
     public SendingResult send(String modelName, String id, byte[] message) throws WorkbenchException {
+        return send(modelName, id, message, null);
+    }
+
+    /**
+     * Send the remaining bytes of a {@link ByteBuffer} to a real-time or simulation model. The buffer is handed to
+     * the model's {@link MessageProcessor#processMessage(ProcessingContext, DigitalTwinBase, ByteBuffer)} without
+     * copying, so a slice of a larger buffer, such as a memory-mapped file, can be sent directly. The buffer's contents
+     * must not change until the message has been processed, which is after send returns if the message is queued.
+     * Otherwise behaves like {@link Workbench#send(String, String, byte[])}.
+     * @param modelName The model name.
+     * @param id the instance id.
+     * @param message the message to send.
+     * @return {@link SendingResult#Handled} if the message was processed on the calling thread, or
+     * {@link SendingResult#Enqueued} if it was queued for the thread processing the instance or for the next
+     * simulation step, or {@link SendingResult#NotHandled} if the simulation's inbound queue stayed full for the
+     * configured timeout.
+     * @throws WorkbenchException if model name, id, or messages are null, if the model does not exist, or if the
+     * calling thread is interrupted while waiting for queue capacity. Also thrown if the model's
+     * {@link MessageProcessor} throws an exception.
+     */
+    public SendingResult send(String modelName, String id, ByteBuffer message) throws WorkbenchException {
+        if(message == null) {
+            throw new WorkbenchException("ModelName, Id, and messages are required.");
+        }
+        return send(modelName, id, null, message);
+    }
+
+    private SendingResult send(String modelName, String id, byte[] message, ByteBuffer buffer) throws WorkbenchException {
         if(modelName == null || id == null) {
             throw new WorkbenchException("ModelName, Id, and messages are required.");
         }
-        if(_twinExecutionEngine.hasModel(modelName) && !_simulationStarted) {
-            _twinExecutionEngine.run(modelName, id, null, message);
-        } else {
-            String msg = _twinExecutionEngine.hasModel(modelName) ? String.format("Cannot send message to %s. Simulation is active.", modelName) : String.format("Cannot send message to %s. Model does not exist.", modelName);
-            throw new WorkbenchException(msg);
+        if(!_twinExecutionEngine.hasModel(modelName)) {
+            throw new WorkbenchException(String.format("Cannot send message to %s. Model does not exist.", modelName));
+        }
+        if(_simulationStarted) {
+            SendingResult queued = enqueueInbound(modelName, id, message, buffer);
+            if(queued != null) {
+                return queued;
+            }
+        }
+        if(_twinExecutionEngine.run(modelName, id, null, message, buffer) == null) {
+            return SendingResult.Enqueued;
         }
         return SendingResult.Handled;
     }
 
+    // queues a message for the next simulation step; returns null if the simulation stopped, in which case the caller
+    // processes the message directly
+    private SendingResult enqueueInbound(String modelName, String id, byte[] message, ByteBuffer buffer) throws WorkbenchException {
+        _inboundLock.readLock().lock();
+        try {
+            if(!_simulationStarted) {
+                return null;
+            }
+            return _twinExecutionEngine.enqueueInbound(modelName, id, message, buffer) ? SendingResult.Enqueued : SendingResult.NotHandled;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new WorkbenchException(e);
+        } finally {
+            _inboundLock.readLock().unlock();
+        }
+    }
+
+    private List<SendingResult> enqueueInbound(String modelName, List<WorkbenchMessage> batch) throws WorkbenchException {
+        _inboundLock.readLock().lock();
+        try {
+            if(!_simulationStarted) {
+                return null;
+            }
+            SendingResult[] results = new SendingResult[batch.size()];
+            for(int i = 0; i < results.length; i++) {
+                WorkbenchMessage message = batch.get(i);
+                boolean queued = _twinExecutionEngine.enqueueInbound(modelName, message.getId(), message.getMessage(), message.getBuffer());
+                results[i] = queued ? SendingResult.Enqueued : SendingResult.NotHandled;
+            }
+            return Arrays.asList(results);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new WorkbenchException(e);
+        } finally {
+            _inboundLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Send a batch of messages to a real-time or simulation model. The batch is partitioned by instance id across the
+     * workbench's workers and the partitions are processed in parallel. The messages of each instance are processed in
+     * the order they appear in the batch, on a single thread.
+     * @param modelName the model name.
+     * @param messages the messages to send.
+     * @return the {@link SendingResult} of each message, in batch order: {@link SendingResult#Handled} if the
+     * message was processed, {@link SendingResult#Enqueued} if it was queued for another thread processing the
+     * instance or for the next simulation step (see {@link Workbench#send(String, String, byte[])}), or
+     * {@link SendingResult#NotHandled} if the model's message processor threw an exception or if the simulation's
+     * inbound queue stayed full for the configured timeout.
+     * @throws WorkbenchException if model name, messages, or any message's id is null, if the model does not exist, or
+     * if the calling thread is interrupted while waiting for queue capacity during a simulation.
+     */
+    public List<SendingResult> sendAll(String modelName, Collection<WorkbenchMessage> messages) throws WorkbenchException {
+        if(modelName == null || messages == null) {
+            throw new WorkbenchException("ModelName and messages are required.");
+        }
+        List<WorkbenchMessage> batch = messages instanceof List ? (List<WorkbenchMessage>) messages : new ArrayList<>(messages);
+        for(WorkbenchMessage message : batch) {
+            if(message == null || message.getId() == null) {
+                throw new WorkbenchException("Every message requires an id.");
+            }
+        }
+        if(!_twinExecutionEngine.hasModel(modelName)) {
+            throw new WorkbenchException(String.format("Cannot send message to %s. Model does not exist.", modelName));
+        } else if(_simulationStarted) {
+            List<SendingResult> queued = enqueueInbound(modelName, batch);
+            if(queued != null) {
+                return queued;
+            }
+        }
+        return Arrays.asList(_twinExecutionEngine.sendAll(modelName, batch, _numWorkers));
+    }
+
+    /**
+     * Send a stream of messages to a real-time or simulation model as a single batch.
+     * @param modelName the model name.
+     * @param messages the messages to send.
+     * @return the {@link SendingResult} of each message, in stream order.
+     * @throws WorkbenchException under the same conditions as {@link Workbench#sendAll(String, Collection)}.
+     * @see Workbench#sendAll(String, Collection)
+     */
+    public List<SendingResult> sendAll(String modelName, Stream<WorkbenchMessage> messages) throws WorkbenchException {
+        if(messages == null) {
+            throw new WorkbenchException("ModelName and messages are required.");
+        }
+        return sendAll(modelName, messages.collect(Collectors.toList()));
+    }
+
     /**
      * Add a key/value pair to {@link SharedData} for a model.
      * @param modelName the model name.
@@ -595,7 +1064,7 @@ public class Workbench implements AutoCloseable {
      * @param value the value.
      */
     public void addSharedModelData(String modelName, String key, byte[] value) {
-        _twinExecutionEngine.getModelData(modelName).put(key, value);
+        WorkbenchSharedData.put(_twinExecutionEngine.getModelData(modelName), key, value);
     }
 
     /**
@@ -604,7 +1073,21 @@ public class Workbench implements AutoCloseable {
      * @param value the value.
      */
     public void addGlobalModelData(String key, byte[] value) {
-        _twinExecutionEngine.getGlobalSharedData().put(key, value);
+        _twinExecutionEngine.getGlobalSharedDataWrapper().put(key, value).join();
+    }
+
+    /**
+     * Replaces the global {@link SharedData} of this workbench, for example with a {@link MappedSharedData} that keeps
+     * large reference data off the Java heap. Data in the previous global shared data is not copied. The workbench
+     * does not close the shared data.
+     *
+     * @param sharedData the global shared data.
+     * @throws WorkbenchException if sharedData is null or if a simulation is already running.
+     */
+    public void setSharedGlobalData(SharedData sharedData) throws WorkbenchException {
+        if(sharedData == null) throw new WorkbenchException(new IllegalArgumentException("Shared data is required."));
+        if(_simulationStarted) throw new WorkbenchException("Cannot replace the global shared data while simulation is active.");
+        _twinExecutionEngine.setGlobalSharedDataWrapper(sharedData);
     }
 
     @Override
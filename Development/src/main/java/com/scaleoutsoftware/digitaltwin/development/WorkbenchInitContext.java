@@ -39,12 +39,12 @@ class WorkbenchInitContext<T extends DigitalTwinBase<T>> extends InitContext<T>
 
     @Override
     public SharedData getSharedModelData() {
-        return new WorkbenchSharedData(_twinExecutionEngine.getModelData(_model));
+        return _twinExecutionEngine.getModelSharedData(_model);
     }
 
     @Override
     public SharedData getSharedGlobalData() {
-        return new WorkbenchSharedData(_twinExecutionEngine.getGlobalSharedData());
+        return _twinExecutionEngine.getGlobalSharedDataWrapper();
     }
 
     @Override
@@ -0,0 +1,80 @@
+/*
+ Copyright (c) 2026 by ScaleOut Software, Inc.
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+*/
+package com.scaleoutsoftware.digitaltwin.development;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A message addressed to a digital twin instance, used to send batches of messages with
+ * {@link Workbench#sendAll(String, java.util.Collection)}.
+ */
+public final class WorkbenchMessage {
+    private final String        _id;
+    private final byte[]        _message;
+    private final ByteBuffer    _buffer;
+
+    /**
+     * Creates a message for a digital twin instance.
+     *
+     * @param id the instance id.
+     * @param message the message.
+     */
+    public WorkbenchMessage(String id, byte[] message) {
+        _id         = id;
+        _message    = message;
+        _buffer     = null;
+    }
+
+    /**
+     * Creates a message for a digital twin instance from the remaining bytes of a buffer. The buffer is not copied;
+     * its contents must not change until the message has been processed.
+     *
+     * @param id the instance id.
+     * @param message the message.
+     */
+    public WorkbenchMessage(String id, ByteBuffer message) {
+        _id         = id;
+        _message    = null;
+        _buffer     = message;
+    }
+
+    /**
+     * Retrieves the instance id.
+     *
+     * @return the instance id.
+     */
+    public String getId() {
+        return _id;
+    }
+
+    /**
+     * Retrieves the message.
+     *
+     * @return the message, or null if the message is held in a {@link ByteBuffer}.
+     */
+    public byte[] getMessage() {
+        return _message;
+    }
+
+    /**
+     * Retrieves the buffer that holds the message.
+     *
+     * @return the buffer, or null if the message is a byte array.
+     */
+    public ByteBuffer getBuffer() {
+        return _buffer;
+    }
+}
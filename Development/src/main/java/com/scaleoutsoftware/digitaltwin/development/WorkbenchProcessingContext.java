@@ -17,42 +17,47 @@ package com.scaleoutsoftware.digitaltwin.development;
 
 import com.scaleoutsoftware.digitaltwin.abstractions.*;
 
+import java.nio.ByteBuffer;
 import java.time.Duration;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
 import java.util.logging.Level;
 
 class WorkbenchProcessingContext<T extends DigitalTwinBase<T>> extends ProcessingContext<T> {
-    final TwinExecutionEngine   _twinExecutionEngine;
-    String                      _model;
-    String                      _id;
-    String                      _source;
-    TwinProxy                   _proxy;
-    SimulationController        _controller;
-    HashMap<String, byte[]>     _modelData;
-    HashMap<String, byte[]>     _globalData;
-    boolean                     _forceSave;
-
-    WorkbenchProcessingContext(TwinExecutionEngine twinExecutionEngine, HashMap<String, byte[]> modelSharedData, HashMap<String, byte[]> globalSharedData, SimulationController simulationController) {
-        _twinExecutionEngine = twinExecutionEngine;
-        _controller          = simulationController;
-        _modelData           = modelSharedData;
-        _globalData          = globalSharedData;
-    }
+    final TwinExecutionEngine           _twinExecutionEngine;
+    String                              _model;
+    String                              _id;
+    String                              _source;
+    TwinProxy                           _proxy;
+    SimulationController                _controller;
+    SharedData                          _modelSharedData;
+    SharedData                          _globalSharedData;
+    StepSharedData                      _modelStepData;
+    StepSharedData                      _globalStepData;
+    boolean                             _forceSave;
 
     WorkbenchProcessingContext(TwinExecutionEngine twinExecutionEngine, SimulationController controller) {
         _twinExecutionEngine    = twinExecutionEngine;
         _controller             = controller;
     }
 
+    void reset(ModelMetadata metadata, String id, String source, TwinProxy proxy, SimulationController controller) {
+        _model              = metadata.getName();
+        _id                 = id;
+        _proxy              = proxy;
+        _forceSave          = false;
+        _source             = source;
+        _controller         = controller;
+        resetSharedData(metadata.getSharedDataWrapper(), _twinExecutionEngine.getGlobalSharedDataWrapper());
+    }
+
     void reset(String model, String id, String source, TwinProxy proxy) {
         _model          = model;
         _id             = id;
         _proxy          = proxy;
         _forceSave      = false;
         _source         = source;
-        _modelData      = _twinExecutionEngine.getModelData(model);
-        _globalData     = _twinExecutionEngine.getGlobalSharedData();
+        resetSharedData(_twinExecutionEngine.getModelSharedData(model), _twinExecutionEngine.getGlobalSharedDataWrapper());
     }
 
     void reset(String model, String id, String source) {
@@ -60,8 +65,24 @@ class WorkbenchProcessingContext<T extends DigitalTwinBase<T>> extends Processin
         _id             = id;
         _forceSave      = false;
         _source         = source;
-        _modelData      = _twinExecutionEngine.getModelData(model);
-        _globalData     = _twinExecutionEngine.getGlobalSharedData();
+        resetSharedData(_twinExecutionEngine.getModelSharedData(model), _twinExecutionEngine.getGlobalSharedDataWrapper());
+    }
+
+    // during a step with snapshot isolation the twin gets views that buffer its writes until the step barrier
+    private void resetSharedData(SharedData modelSharedData, SharedData globalSharedData) {
+        if(!_twinExecutionEngine.isSharedDataIsolated()) {
+            _modelSharedData    = modelSharedData;
+            _globalSharedData   = globalSharedData;
+            return;
+        }
+        if(_modelStepData == null) {
+            _modelStepData  = new StepSharedData(_twinExecutionEngine.getStepWrites(), this);
+            _globalStepData = new StepSharedData(_twinExecutionEngine.getStepWrites(), this);
+        }
+        _modelStepData.reset(modelSharedData);
+        _globalStepData.reset(globalSharedData);
+        _modelSharedData    = _modelStepData;
+        _globalSharedData   = _globalStepData;
     }
 
     void resetProxy(TwinProxy proxy) {
@@ -75,7 +96,16 @@ class WorkbenchProcessingContext<T extends DigitalTwinBase<T>> extends Processin
     @Override
     public CompletableFuture<SendingResult> sendToDataSource(byte[] message) {
         try {
-            return CompletableFuture.completedFuture(_twinExecutionEngine.sendToSource(_source, _model, _id, message));
+            return CompletableFuture.completedFuture(_twinExecutionEngine.sendToSource(_source, _model, _id, message, null));
+        } catch (WorkbenchException e) {
+            return CompletableFuture.completedFuture(SendingResult.NotHandled);
+        }
+    }
+
+    @Override
+    public CompletableFuture<SendingResult> sendToDataSource(ByteBuffer message) {
+        try {
+            return CompletableFuture.completedFuture(_twinExecutionEngine.sendToSource(_source, _model, _id, null, message));
         } catch (WorkbenchException e) {
             return CompletableFuture.completedFuture(SendingResult.NotHandled);
         }
@@ -84,7 +114,16 @@ class WorkbenchProcessingContext<T extends DigitalTwinBase<T>> extends Processin
     @Override
     public CompletableFuture<SendingResult> sendToDigitalTwin(String model, String id, byte[] message) {
         try {
-            return CompletableFuture.completedFuture(_twinExecutionEngine.run(model, id,null, message) != null ? SendingResult.Handled : SendingResult.NotHandled);
+            return CompletableFuture.completedFuture(_twinExecutionEngine.sendToTwin(model, id, null, message, null));
+        } catch (WorkbenchException e) {
+            return CompletableFuture.completedFuture(SendingResult.NotHandled);
+        }
+    }
+
+    @Override
+    public CompletableFuture<SendingResult> sendToDigitalTwin(String model, String id, ByteBuffer message) {
+        try {
+            return CompletableFuture.completedFuture(_twinExecutionEngine.sendToTwin(model, id, null, null, message));
         } catch (WorkbenchException e) {
             return CompletableFuture.completedFuture(SendingResult.NotHandled);
         }
@@ -160,11 +199,11 @@ class WorkbenchProcessingContext<T extends DigitalTwinBase<T>> extends Processin
 
     @Override
     public SharedData getSharedModelData() {
-        return new WorkbenchSharedData(_modelData);
+        return _modelSharedData;
     }
 
     @Override
     public SharedData getSharedGlobalData() {
-        return new WorkbenchSharedData(_globalData);
+        return _globalSharedData;
     }
 }
@@ -19,96 +19,162 @@ import com.scaleoutsoftware.digitaltwin.abstractions.CacheOperationStatus;
 import com.scaleoutsoftware.digitaltwin.abstractions.CacheResult;
 import com.scaleoutsoftware.digitaltwin.abstractions.SharedData;
 
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
-
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiFunction;
+
+/**
+ * SharedData over a {@link ConcurrentHashMap}, which every twin and simulation worker of a workbench shares. The map
+ * locks per hash bin, so operations on different keys rarely contend, and the atomic operations run under the lock of
+ * their key's bin. The map cannot hold null values, so putting null removes the key.
+ */
 class WorkbenchSharedData implements SharedData {
-    private final HashMap<String, byte[]> data;
+    private final ConcurrentHashMap<String, byte[]> data;
 
-    public WorkbenchSharedData(HashMap<String, byte[]> shared) {
+    public WorkbenchSharedData(ConcurrentHashMap<String, byte[]> shared) {
         data = shared;
     }
+
+    static void put(ConcurrentHashMap<String, byte[]> data, String key, byte[] value) {
+        if(value == null) data.remove(key);
+        else data.put(key, value);
+    }
+
     @Override
     public CompletableFuture<CacheResult> get(String s) {
-        return CompletableFuture.completedFuture(new CacheResult() {
-            @Override
-            public String getKey() {
-                return s;
-            }
+        byte[] v = data.get(s);
+        return result(s, v, v != null ? CacheOperationStatus.ObjectRetrieved : CacheOperationStatus.ObjectDoesNotExist);
+    }
 
-            @Override
-            public byte[] getValue() {
-                return data.getOrDefault(s, null);
-            }
+    @Override
+    public byte[] getValue(String key) {
+        return data.get(key);
+    }
 
-            @Override
-            public CacheOperationStatus getStatus() {
-                return data.containsKey(s) ? CacheOperationStatus.ObjectRetrieved : CacheOperationStatus.ObjectDoesNotExist;
-            }
-        });
+    @Override
+    public CompletableFuture<CacheResult> put(String s, byte[] bytes) {
+        put(data, s, bytes);
+        return result(s, bytes, CacheOperationStatus.ObjectPut);
+    }
 
+    @Override
+    public CompletableFuture<CacheResult> remove(String s) {
+        byte[] v = data.remove(s);
+        return result(s, v, v == null ? CacheOperationStatus.ObjectDoesNotExist : CacheOperationStatus.ObjectRemoved);
     }
 
     @Override
-    public CompletableFuture<CacheResult> put(String s, byte[] bytes) {
-        data.put(s, bytes);
-        return CompletableFuture.completedFuture(new CacheResult() {
-            @Override
-            public String getKey() {
-                return s;
-            }
+    public CompletableFuture<CacheResult> clear() {
+        data.clear();
+        return result(null, null, CacheOperationStatus.CacheCleared);
+    }
 
-            @Override
-            public byte[] getValue() {
-                return bytes;
-            }
+    @Override
+    public CompletableFuture<Map<String, byte[]>> getAll(Collection<String> keys) {
+        Map<String, byte[]> values = new HashMap<>(Math.max(16, keys.size() * 4 / 3 + 1));
+        for(String key : keys) {
+            byte[] v = data.get(key);
+            if(v != null) values.put(key, v);
+        }
+        return CompletableFuture.completedFuture(values);
+    }
 
-            @Override
-            public CacheOperationStatus getStatus() {
-                return CacheOperationStatus.ObjectPut;
-            }
-        });
+    @Override
+    public CompletableFuture<Void> putAll(Map<String, byte[]> values) {
+        for(Map.Entry<String, byte[]> entry : values.entrySet()) {
+            put(data, entry.getKey(), entry.getValue());
+        }
+        return CompletableFuture.completedFuture(null);
     }
 
     @Override
-    public CompletableFuture<CacheResult> remove(String s) {
-        byte[] v = data.remove(s);
-        return CompletableFuture.completedFuture(new CacheResult() {
-            @Override
-            public String getKey() {
-                return s;
-            }
+    public CompletableFuture<Map<String, byte[]>> removeAll(Collection<String> keys) {
+        Map<String, byte[]> values = new HashMap<>(Math.max(16, keys.size() * 4 / 3 + 1));
+        for(String key : keys) {
+            byte[] v = data.remove(key);
+            if(v != null) values.put(key, v);
+        }
+        return CompletableFuture.completedFuture(values);
+    }
 
-            @Override
-            public byte[] getValue() {
-                return v;
-            }
+    @Override
+    public CompletableFuture<CacheResult> putIfAbsent(String key, byte[] value) {
+        if(value == null) return failed(new IllegalArgumentException("Value is required."));
+        byte[] existing = data.putIfAbsent(key, value);
+        return existing == null ? result(key, value, CacheOperationStatus.ObjectPut) : result(key, existing, CacheOperationStatus.ObjectRetrieved);
+    }
 
-            @Override
-            public CacheOperationStatus getStatus() {
-                return v == null ? CacheOperationStatus.ObjectDoesNotExist : CacheOperationStatus.ObjectRemoved;
-            }
+    @Override
+    public CompletableFuture<CacheResult> compareAndSet(String key, byte[] expected, byte[] value) {
+        if(value == null) return failed(new IllegalArgumentException("Value is required."));
+        byte[][] current = new byte[1][];
+        data.compute(key, (k, v) -> {
+            current[0] = v;
+            return Arrays.equals(v, expected) ? value : v;
         });
+        if(Arrays.equals(current[0], expected)) return result(key, value, CacheOperationStatus.ObjectPut);
+        return current[0] == null ? result(key, null, CacheOperationStatus.ObjectDoesNotExist) : result(key, current[0], CacheOperationStatus.ObjectRetrieved);
     }
 
     @Override
-    public CompletableFuture<CacheResult> clear() {
-        data.clear();
+    public CompletableFuture<Long> getAndAdd(String key, long delta) {
+        long[] previous = new long[1];
+        try {
+            data.compute(key, (k, v) -> {
+                if(v != null && v.length != Long.BYTES) throw new IllegalStateException(String.format("The value of %s is not a counter.", k));
+                previous[0] = v == null ? 0 : ByteBuffer.wrap(v).getLong();
+                return ByteBuffer.allocate(Long.BYTES).putLong(previous[0] + delta).array();
+            });
+        } catch (IllegalStateException e) {
+            return failed(e);
+        }
+        return CompletableFuture.completedFuture(previous[0]);
+    }
+
+    @Override
+    public CompletableFuture<CacheResult> compute(String key, BiFunction<String, byte[], byte[]> remappingFunction) {
+        if(remappingFunction == null) return failed(new IllegalArgumentException("Remapping function is required."));
+        boolean[] existed = new boolean[1];
+        byte[] updated;
+        try {
+            updated = data.compute(key, (k, v) -> {
+                existed[0] = v != null;
+                return remappingFunction.apply(k, v);
+            });
+        } catch (RuntimeException e) {
+            return failed(e);
+        }
+        if(updated != null) return result(key, updated, CacheOperationStatus.ObjectPut);
+        return result(key, null, existed[0] ? CacheOperationStatus.ObjectRemoved : CacheOperationStatus.ObjectDoesNotExist);
+    }
+
+    static CompletableFuture<CacheResult> result(String key, byte[] value, CacheOperationStatus status) {
         return CompletableFuture.completedFuture(new CacheResult() {
             @Override
             public String getKey() {
-                return null;
+                return key;
             }
 
             @Override
             public byte[] getValue() {
-                return null;
+                return value;
             }
 
             @Override
             public CacheOperationStatus getStatus() {
-                return CacheOperationStatus.CacheCleared;
+                return status;
             }
         });
     }
+
+    static <R> CompletableFuture<R> failed(Throwable t) {
+        CompletableFuture<R> result = new CompletableFuture<>();
+        result.completeExceptionally(t);
+        return result;
+    }
 }
@@ -65,8 +65,8 @@ class WorkbenchSimulationController implements SimulationController {
     @Override
     public CompletableFuture<SendingResult> emitTelemetry(String modelName, byte[] message) {
         try {
-            _engine.run(modelName, _id, _modelName, message);
-            return CompletableFuture.completedFuture(SendingResult.Handled);
+            SendingResult result = _engine.sendToTwin(modelName, _id, _modelName, message, null);
+            return CompletableFuture.completedFuture(result == SendingResult.Enqueued ? SendingResult.Enqueued : SendingResult.Handled);
         } catch (WorkbenchException e) {
             return CompletableFuture.completedFuture(SendingResult.NotHandled);
         }
@@ -127,6 +127,16 @@ class WorkbenchSimulationController implements SimulationController {
         _enqueue        = true;
     }
 
+    void reset(SimulationScheduler scheduler, String modelName, String id) {
+        _scheduler          = scheduler;
+        _simulationStatus   = SimulationStatus.Running;
+        reset(modelName, id);
+    }
+
+    void resetStatus() {
+        _simulationStatus = SimulationStatus.Running;
+    }
+
     public long getRequestedDelay() {
         return _requestedDelay;
     }
@@ -20,10 +20,18 @@ import com.scaleoutsoftware.digitaltwin.abstractions.*;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.io.DataOutputStream;
+import java.io.IOException;
 import java.io.Serializable;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
@@ -216,6 +224,410 @@ public class TestWorkbench {
         }
     }
 
+    public static class AllocationSimProcessor extends SimulationProcessor<SimpleDigitalTwin> implements Serializable {
+        private static final com.sun.management.ThreadMXBean THREAD_BEAN = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        private long    _firstTime      = -1L;
+        private long    _lastTime       = -1L;
+        private long    _lastThreadId   = -1L;
+        private long    _lastAllocated;
+        private long    _overhead       = -1L;
+        private long    _totalAllocated;
+        private int     _samples;
+
+        public long getTotalAllocatedBytes() {
+            return _totalAllocated;
+        }
+
+        public int getSamples() {
+            return _samples;
+        }
+
+        @Override
+        public ProcessingResult processModel(ProcessingContext<SimpleDigitalTwin> processingContext, SimpleDigitalTwin simpleDigitalTwin, Date date) {
+            long threadId = Thread.currentThread().getId();
+            if(_overhead < 0) {
+                // the allocation counter may allocate on some JVMs; measure it so it can be subtracted
+                long first = THREAD_BEAN.getThreadAllocatedBytes(threadId);
+                _overhead = THREAD_BEAN.getThreadAllocatedBytes(threadId) - first;
+                _firstTime = date.getTime();
+            }
+            long allocated = THREAD_BEAN.getThreadAllocatedBytes(threadId);
+            // the first step sizes the worker's buffers; measure the allocations between events of the later steps
+            if(threadId == _lastThreadId && date.getTime() == _lastTime && date.getTime() != _firstTime) {
+                _totalAllocated += allocated - _lastAllocated - _overhead;
+                _samples++;
+            }
+            _lastThreadId   = threadId;
+            _lastTime       = date.getTime();
+            _lastAllocated  = THREAD_BEAN.getThreadAllocatedBytes(threadId);
+            return ProcessingResult.UpdateDigitalTwin;
+        }
+    }
+
+    public static class CountingMessageProcessor extends MessageProcessor<SimpleDigitalTwin> implements Serializable {
+        private int _messagesProcessed;
+
+        public int getMessagesProcessed() {
+            return _messagesProcessed;
+        }
+
+        @Override
+        public ProcessingResult processMessage(ProcessingContext processingContext, SimpleDigitalTwin simpleDigitalTwin, byte[] message) {
+            _messagesProcessed++;
+            return ProcessingResult.UpdateDigitalTwin;
+        }
+    }
+
+    public static class SequenceMessageProcessor extends MessageProcessor<SimpleDigitalTwin> implements Serializable {
+        private final ConcurrentHashMap<String, Integer>    _lastSequence   = new ConcurrentHashMap<>();
+        private final AtomicInteger                         _outOfOrder     = new AtomicInteger(0);
+        private final AtomicInteger                         _processed      = new AtomicInteger(0);
+
+        public int getOutOfOrder() {
+            return _outOfOrder.get();
+        }
+
+        public int getProcessed() {
+            return _processed.get();
+        }
+
+        @Override
+        public ProcessingResult processMessage(ProcessingContext processingContext, SimpleDigitalTwin simpleDigitalTwin, byte[] message) {
+            int sequence = Integer.parseInt(new String(message, StandardCharsets.UTF_8));
+            if(sequence < 0) throw new IllegalStateException("Negative sequence.");
+            Integer last = _lastSequence.put(processingContext.getDataSourceId(), sequence);
+            if(last != null && last >= sequence) _outOfOrder.incrementAndGet();
+            _processed.incrementAndGet();
+            return ProcessingResult.UpdateDigitalTwin;
+        }
+    }
+
+    public static class ExclusiveMessageProcessor extends MessageProcessor<SimpleDigitalTwin> implements Serializable {
+        private final ConcurrentHashMap<String, AtomicInteger>  _active         = new ConcurrentHashMap<>();
+        private final ConcurrentHashMap<String, Integer>        _lastSequence   = new ConcurrentHashMap<>();
+        private final AtomicInteger                             _overlapped     = new AtomicInteger(0);
+        private final AtomicInteger                             _outOfOrder     = new AtomicInteger(0);
+        private final AtomicInteger                             _processed      = new AtomicInteger(0);
+
+        public int getOverlapped() {
+            return _overlapped.get();
+        }
+
+        public int getOutOfOrder() {
+            return _outOfOrder.get();
+        }
+
+        public int getProcessed() {
+            return _processed.get();
+        }
+
+        @Override
+        public ProcessingResult processMessage(ProcessingContext processingContext, SimpleDigitalTwin simpleDigitalTwin, byte[] message) {
+            String id = processingContext.getDataSourceId();
+            AtomicInteger active = _active.computeIfAbsent(id, k -> new AtomicInteger(0));
+            if(active.incrementAndGet() > 1) _overlapped.incrementAndGet();
+            // messages are "sender:sequence"; each sender's messages must arrive in order
+            String[] parts = new String(message, StandardCharsets.UTF_8).split(":");
+            int sequence = Integer.parseInt(parts[1]);
+            Integer last = _lastSequence.put(id + "/" + parts[0], sequence);
+            if(last != null && last >= sequence) _outOfOrder.incrementAndGet();
+            _processed.incrementAndGet();
+            Thread.yield();
+            active.decrementAndGet();
+            return ProcessingResult.UpdateDigitalTwin;
+        }
+    }
+
+    public static class PingPongMessageProcessor extends MessageProcessor<SimpleDigitalTwin> implements Serializable {
+        private final AtomicInteger _processed      = new AtomicInteger(0);
+        private final AtomicInteger _notEnqueued    = new AtomicInteger(0);
+
+        public int getProcessed() {
+            return _processed.get();
+        }
+
+        public int getNotEnqueued() {
+            return _notEnqueued.get();
+        }
+
+        @Override
+        public ProcessingResult processMessage(ProcessingContext processingContext, SimpleDigitalTwin simpleDigitalTwin, byte[] message) throws Exception {
+            int remaining = Integer.parseInt(new String(message, StandardCharsets.UTF_8));
+            _processed.incrementAndGet();
+            if(remaining > 0) {
+                String target = processingContext.getDataSourceId().equals("ping") ? "pong" : "ping";
+                byte[] next = ("" + (remaining - 1)).getBytes(StandardCharsets.UTF_8);
+                CompletableFuture<SendingResult> result = processingContext.sendToDigitalTwin("PingPong", target, next);
+                if(result.get() != SendingResult.Enqueued) _notEnqueued.incrementAndGet();
+            }
+            return ProcessingResult.UpdateDigitalTwin;
+        }
+    }
+
+    public static class BufferMessageProcessor extends MessageProcessor<SimpleDigitalTwin> implements Serializable {
+        private final AtomicInteger _directBuffers  = new AtomicInteger(0);
+        private final AtomicInteger _byteTotal      = new AtomicInteger(0);
+
+        public int getDirectBuffers() {
+            return _directBuffers.get();
+        }
+
+        public int getByteTotal() {
+            return _byteTotal.get();
+        }
+
+        @Override
+        public ProcessingResult processMessage(ProcessingContext processingContext, SimpleDigitalTwin simpleDigitalTwin, byte[] message) {
+            _byteTotal.addAndGet(message.length);
+            return ProcessingResult.UpdateDigitalTwin;
+        }
+
+        @Override
+        public ProcessingResult processMessage(ProcessingContext processingContext, SimpleDigitalTwin simpleDigitalTwin, ByteBuffer message) {
+            if(message.isDirect()) _directBuffers.incrementAndGet();
+            _byteTotal.addAndGet(message.remaining());
+            return ProcessingResult.UpdateDigitalTwin;
+        }
+    }
+
+    public static class TypedMessage {
+        String  name;
+        int     value;
+        Integer bonus;
+        public TypedMessage() {}
+        public TypedMessage(String n, int v, Integer b) {
+            name = n;
+            value = v;
+            bonus = b;
+        }
+    }
+
+    public static class CountingCodec implements MessageCodec<TypedMessage>, Serializable {
+        private final MessageCodec<TypedMessage>    _codec;
+        private final AtomicInteger                 _decoded = new AtomicInteger(0);
+
+        public CountingCodec(MessageCodec<TypedMessage> codec) {
+            _codec = codec;
+        }
+
+        public int getDecoded() {
+            return _decoded.get();
+        }
+
+        @Override
+        public TypedMessage decode(byte[] message) throws Exception {
+            _decoded.incrementAndGet();
+            return _codec.decode(message);
+        }
+
+        @Override
+        public byte[] encode(TypedMessage message) throws Exception {
+            return _codec.encode(message);
+        }
+    }
+
+    public static class TypedCountingProcessor extends TypedMessageProcessor<SimpleDigitalTwin, TypedMessage> implements Serializable {
+        private final AtomicInteger _processed  = new AtomicInteger(0);
+        private final AtomicInteger _valueTotal = new AtomicInteger(0);
+
+        public TypedCountingProcessor(MessageCodec<TypedMessage> codec) {
+            super(TypedMessage.class, codec);
+        }
+
+        public int getProcessed() {
+            return _processed.get();
+        }
+
+        public int getValueTotal() {
+            return _valueTotal.get();
+        }
+
+        @Override
+        public ProcessingResult processTypedMessage(ProcessingContext<SimpleDigitalTwin> context, SimpleDigitalTwin instance, TypedMessage message) {
+            _processed.incrementAndGet();
+            _valueTotal.addAndGet(message.value + (message.bonus != null ? message.bonus : 0));
+            return "remove".equals(message.name) ? ProcessingResult.Remove : ProcessingResult.UpdateDigitalTwin;
+        }
+    }
+
+    public static class CoalescingMessageProcessor extends MessageProcessor<SimpleDigitalTwin> implements Serializable {
+        private final AtomicInteger                     _calls      = new AtomicInteger(0);
+        private final AtomicInteger                     _messages   = new AtomicInteger(0);
+        private final ConcurrentHashMap<String, String> _last       = new ConcurrentHashMap<>();
+
+        public int getCalls() {
+            return _calls.get();
+        }
+
+        public int getMessages() {
+            return _messages.get();
+        }
+
+        public String getLast(String id) {
+            return _last.get(id);
+        }
+
+        @Override
+        public ProcessingResult processMessage(ProcessingContext<SimpleDigitalTwin> context, SimpleDigitalTwin instance, byte[] message) {
+            _calls.incrementAndGet();
+            _messages.incrementAndGet();
+            _last.put(context.getDataSourceId(), new String(message, StandardCharsets.UTF_8));
+            return ProcessingResult.UpdateDigitalTwin;
+        }
+
+        @Override
+        public ProcessingResult processMessages(ProcessingContext<SimpleDigitalTwin> context, SimpleDigitalTwin instance, List<byte[]> messages) {
+            _calls.incrementAndGet();
+            _messages.addAndGet(messages.size());
+            _last.put(context.getDataSourceId(), new String(messages.get(messages.size() - 1), StandardCharsets.UTF_8));
+            return ProcessingResult.UpdateDigitalTwin;
+        }
+    }
+
+    public static class SharedCounterMessageProcessor extends MessageProcessor<SimpleDigitalTwin> implements Serializable {
+        @Override
+        public ProcessingResult processMessage(ProcessingContext<SimpleDigitalTwin> context, SimpleDigitalTwin instance, byte[] message) throws Exception {
+            context.getSharedGlobalData().getAndIncrement("count").get();
+            // appends one byte per message to the model's shared log
+            context.getSharedModelData().compute("log", (k, v) -> {
+                byte[] log = v == null ? new byte[1] : Arrays.copyOf(v, v.length + 1);
+                log[log.length - 1] = message[0];
+                return log;
+            }).get();
+            return ProcessingResult.UpdateDigitalTwin;
+        }
+    }
+
+    public static class SharedReadMessageProcessor extends MessageProcessor<SimpleDigitalTwin> implements Serializable {
+        private long        _bytesRead;
+        private SharedData  _firstHandle;
+        private boolean     _handleChanged;
+
+        public long getBytesRead() {
+            return _bytesRead;
+        }
+
+        public boolean isHandleChanged() {
+            return _handleChanged;
+        }
+
+        @Override
+        public ProcessingResult processMessage(ProcessingContext<SimpleDigitalTwin> context, SimpleDigitalTwin instance, byte[] message) {
+            SharedData model = context.getSharedModelData();
+            if(_firstHandle == null) _firstHandle = model;
+            if(_firstHandle != model) _handleChanged = true;
+            byte[] table = model.getValue("table");
+            byte[] limits = context.getSharedGlobalData().getValue("limits");
+            byte[] missing = model.getValue("missing");
+            _bytesRead += table.length + limits.length + (missing == null ? 0 : 1);
+            return ProcessingResult.UpdateDigitalTwin;
+        }
+    }
+
+    public static class StepSnapshotSimProcessor extends SimulationProcessor<SimpleDigitalTwin> implements Serializable {
+        private final Map<String, List<Long>>   _observed       = new java.util.concurrent.ConcurrentHashMap<>();
+        private final AtomicInteger             _atomicFailures = new AtomicInteger(0);
+
+        public Map<String, List<Long>> getObserved() {
+            return _observed;
+        }
+
+        public int getAtomicFailures() {
+            return _atomicFailures.get();
+        }
+
+        @Override
+        public ProcessingResult processModel(ProcessingContext<SimpleDigitalTwin> processingContext, SimpleDigitalTwin simpleDigitalTwin, Date date) {
+            SharedData global = processingContext.getSharedGlobalData();
+            byte[] v = global.getValue("step");
+            long step = v == null ? 0 : ByteBuffer.wrap(v).getLong();
+            _observed.computeIfAbsent(simpleDigitalTwin.getId(), id -> new ArrayList<>()).add(step);
+            // every twin of a step reads the same value, so the step count only advances once per step
+            global.put("step", ByteBuffer.allocate(Long.BYTES).putLong(step + 1).array());
+            global.put("last", simpleDigitalTwin.getId().getBytes(StandardCharsets.UTF_8));
+            processingContext.getSharedModelData().put(simpleDigitalTwin.getId(), new byte[] {(byte)step});
+            if(global.getAndIncrement("count").isCompletedExceptionally()) {
+                _atomicFailures.incrementAndGet();
+            }
+            return ProcessingResult.UpdateDigitalTwin;
+        }
+    }
+
+    public static class RemovingMessageProcessor extends MessageProcessor<SimpleDigitalTwin> implements Serializable {
+        private final Map<String, AtomicInteger>    _inFlight   = new java.util.concurrent.ConcurrentHashMap<>();
+        private final AtomicInteger                 _processed  = new AtomicInteger(0);
+        private final AtomicInteger                 _overlaps   = new AtomicInteger(0);
+
+        public int getProcessed() {
+            return _processed.get();
+        }
+
+        public int getOverlaps() {
+            return _overlaps.get();
+        }
+
+        @Override
+        public ProcessingResult processMessage(ProcessingContext<SimpleDigitalTwin> context, SimpleDigitalTwin instance, byte[] message) {
+            AtomicInteger inFlight = _inFlight.computeIfAbsent(context.getDataSourceId(), id -> new AtomicInteger(0));
+            if(inFlight.incrementAndGet() > 1) _overlaps.incrementAndGet();
+            _processed.incrementAndGet();
+            inFlight.decrementAndGet();
+            // odd messages remove the twin
+            return message[0] % 2 == 1 ? ProcessingResult.Remove : ProcessingResult.UpdateDigitalTwin;
+        }
+    }
+
+    public static class BlockingSimProcessor extends SimulationProcessor<SimpleDigitalTwin> implements Serializable {
+        private AtomicInteger   timesInvoked    = new AtomicInteger(0);
+        private AtomicInteger   blocked         = new AtomicInteger(0);
+        private AtomicInteger   maxBlocked      = new AtomicInteger(0);
+
+        public int getTimesInvoked() {
+            return timesInvoked.get();
+        }
+
+        public int getMaxBlocked() {
+            return maxBlocked.get();
+        }
+
+        @Override
+        public ProcessingResult processModel(ProcessingContext<SimpleDigitalTwin> processingContext, SimpleDigitalTwin simpleDigitalTwin, Date date) {
+            timesInvoked.addAndGet(1);
+            maxBlocked.accumulateAndGet(blocked.incrementAndGet(), Math::max);
+            try {
+                // stand-in for a blocking call to an external service
+                Thread.sleep(200);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                blocked.decrementAndGet();
+            }
+            processingContext.getSimulationController().delayIndefinitely();
+            return ProcessingResult.UpdateDigitalTwin;
+        }
+    }
+
+    public static class UnevenSimProcessor extends SimulationProcessor<SimpleDigitalTwin> implements Serializable {
+        private final Map<String, AtomicInteger> invocations = new java.util.concurrent.ConcurrentHashMap<>();
+
+        public Map<String, AtomicInteger> getInvocations() {
+            return invocations;
+        }
+
+        @Override
+        public ProcessingResult processModel(ProcessingContext<SimpleDigitalTwin> processingContext, SimpleDigitalTwin simpleDigitalTwin, Date date) {
+            invocations.computeIfAbsent(simpleDigitalTwin.getId(), id -> new AtomicInteger(0)).incrementAndGet();
+            if(simpleDigitalTwin.getId().startsWith("slow")) {
+                try {
+                    Thread.sleep(1);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return ProcessingResult.UpdateDigitalTwin;
+        }
+    }
+
     public static class SimpleTimer implements TimerHandler<SimpleDigitalTwin> {
 
         @Override
@@ -804,6 +1216,711 @@ public class TestWorkbench {
         }
     }
 
+    @Test
+    public void TestWorkbenchSimulationStepAllocationFree() throws Exception {
+        AllocationSimProcessor processor = new AllocationSimProcessor();
+        try (Workbench workbench = new Workbench(1)) {
+            workbench.addSimulationModel("SimSimple", new SimpleMessageProcessor(), processor, SimpleDigitalTwin.class);
+            for (int twinCount = 0; twinCount < 200; twinCount++) {
+                workbench.addInstance("SimSimple", "" + twinCount, new SimpleDigitalTwin("hello" + twinCount));
+            }
+            long startTimeMs = System.currentTimeMillis();
+            SimulationStep result = workbench.initializeSimulation(startTimeMs, startTimeMs + 10000L, 1000L);
+            while (result.getStatus() == SimulationStatus.Running) {
+                result = workbench.step();
+            }
+            Assert.assertTrue(processor.getSamples() > 0);
+            // any per-event allocation costs at least 16 bytes per event; the JIT may still allocate occasionally
+            Assert.assertEquals(0L, processor.getTotalAllocatedBytes() / processor.getSamples());
+        }
+    }
+
+    @Test
+    public void TestWorkbenchSendAllocationFree() throws Exception {
+        com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        CountingMessageProcessor processor = new CountingMessageProcessor();
+        int sends = 100000;
+        try (Workbench workbench = new Workbench()) {
+            workbench.addRealTimeModel("Counter", processor, SimpleDigitalTwin.class);
+            byte[] message = new byte[16];
+            // the first send creates the twin; the rest warm up the JIT
+            for (int i = 0; i < sends; i++) {
+                workbench.send("Counter", "twin", message);
+            }
+            long threadId = Thread.currentThread().getId();
+            long start = threadBean.getThreadAllocatedBytes(threadId);
+            for (int i = 0; i < sends; i++) {
+                workbench.send("Counter", "twin", message);
+            }
+            long allocated = threadBean.getThreadAllocatedBytes(threadId) - start;
+            Assert.assertEquals(2 * sends, processor.getMessagesProcessed());
+            // any per-message allocation costs at least 16 bytes per message
+            Assert.assertEquals(0L, allocated / sends);
+        }
+    }
+
+    @Test
+    public void TestWorkbenchSendAll() throws Exception {
+        SequenceMessageProcessor processor = new SequenceMessageProcessor();
+        try (Workbench workbench = new Workbench(4)) {
+            workbench.addRealTimeModel("Sequence", processor, SimpleDigitalTwin.class);
+            List<WorkbenchMessage> messages = new ArrayList<>();
+            for (int sequence = 0; sequence < 100; sequence++) {
+                for (int twinCount = 0; twinCount < 100; twinCount++) {
+                    messages.add(new WorkbenchMessage("" + twinCount, ("" + sequence).getBytes(StandardCharsets.UTF_8)));
+                }
+            }
+            messages.add(new WorkbenchMessage("7", "-1".getBytes(StandardCharsets.UTF_8)));
+            List<SendingResult> results = workbench.sendAll("Sequence", messages);
+            Assert.assertEquals(messages.size(), results.size());
+            for (int i = 0; i < results.size() - 1; i++) {
+                Assert.assertSame(SendingResult.Handled, results.get(i));
+            }
+            Assert.assertSame(SendingResult.NotHandled, results.get(results.size() - 1));
+            Assert.assertEquals(10000, processor.getProcessed());
+            Assert.assertEquals(0, processor.getOutOfOrder());
+            Assert.assertEquals(100, workbench.getInstances("Sequence").size());
+
+            results = workbench.sendAll("Sequence", messages.stream().filter(m -> m.getId().equals("3")));
+            Assert.assertEquals(100, results.size());
+        }
+    }
+
+    @Test
+    public void TestWorkbenchConcurrentSend() throws Exception {
+        ExclusiveMessageProcessor processor = new ExclusiveMessageProcessor();
+        int senders = 8;
+        int messagesPerSender = 2000;
+        try (Workbench workbench = new Workbench()) {
+            workbench.addRealTimeModel("Exclusive", processor, SimpleDigitalTwin.class);
+            List<Thread> threads = new ArrayList<>();
+            AtomicInteger failures = new AtomicInteger(0);
+            for (int sender = 0; sender < senders; sender++) {
+                int senderId = sender;
+                threads.add(new Thread(() -> {
+                    try {
+                        for (int sequence = 0; sequence < messagesPerSender; sequence++) {
+                            byte[] message = (senderId + ":" + sequence).getBytes(StandardCharsets.UTF_8);
+                            workbench.send("Exclusive", "" + (sequence % 10), message);
+                        }
+                    } catch (WorkbenchException e) {
+                        failures.incrementAndGet();
+                    }
+                }));
+            }
+            for (Thread thread : threads) thread.start();
+            for (Thread thread : threads) thread.join();
+            Assert.assertEquals(0, failures.get());
+            Assert.assertEquals(senders * messagesPerSender, processor.getProcessed());
+            Assert.assertEquals(0, processor.getOverlapped());
+            Assert.assertEquals(0, processor.getOutOfOrder());
+            Assert.assertEquals(10, workbench.getInstances("Exclusive").size());
+        }
+    }
+
+    @Test
+    public void TestWorkbenchQueuedTwinMessages() throws Exception {
+        PingPongMessageProcessor processor = new PingPongMessageProcessor();
+        try (Workbench workbench = new Workbench()) {
+            workbench.setTwinMessageDelivery(TwinMessageDelivery.Queued);
+            workbench.addRealTimeModel("PingPong", processor, SimpleDigitalTwin.class);
+            // far deeper than the stack allows when every send runs on the sender's thread
+            SendingResult result = workbench.send("PingPong", "ping", "50000".getBytes(StandardCharsets.UTF_8));
+            Assert.assertSame(SendingResult.Handled, result);
+            workbench.awaitQueuedMessages();
+            Assert.assertEquals(50001, processor.getProcessed());
+            Assert.assertEquals(0, processor.getNotEnqueued());
+            Assert.assertEquals(2, workbench.getInstances("PingPong").size());
+        }
+    }
+
+    @Test
+    public void TestWorkbenchSendDuringSimulation() throws Exception {
+        SequenceMessageProcessor processor = new SequenceMessageProcessor();
+        try (Workbench workbench = new Workbench(2)) {
+            workbench.setSimulationInboundCapacity(4);
+            workbench.addRealTimeModel("Sequence", processor, SimpleDigitalTwin.class);
+            workbench.addSimulationModel("SimSimple", new SimpleMessageProcessor(), new SimpleSimProcessor(), SimpleDigitalTwin.class);
+            workbench.addInstance("SimSimple", "1", new SimpleDigitalTwin("hello1"));
+            long startTimeMs = System.currentTimeMillis();
+            SimulationStep result = workbench.initializeSimulation(startTimeMs, startTimeMs + 5000L, 1000L);
+            for (int twinCount = 0; twinCount < 4; twinCount++) {
+                Assert.assertSame(SendingResult.Enqueued, workbench.send("Sequence", "" + twinCount, "1".getBytes(StandardCharsets.UTF_8)));
+            }
+            Assert.assertEquals(0, processor.getProcessed());
+            // the queue is full; the next sender waits for the next simulation step
+            Thread blocked = new Thread(() -> {
+                try {
+                    workbench.send("Sequence", "4", "1".getBytes(StandardCharsets.UTF_8));
+                } catch (WorkbenchException e) {
+                    throw new RuntimeException(e);
+                }
+            });
+            blocked.start();
+            blocked.join(200);
+            Assert.assertTrue(blocked.isAlive());
+            result = workbench.step();
+            blocked.join(5000);
+            Assert.assertFalse(blocked.isAlive());
+            Assert.assertTrue(processor.getProcessed() >= 4);
+            while (result.getStatus() == SimulationStatus.Running) {
+                result = workbench.step();
+            }
+            Assert.assertEquals(5, processor.getProcessed());
+            Assert.assertEquals(5, workbench.getInstances("Sequence").size());
+            Assert.assertSame(SendingResult.Handled, workbench.send("Sequence", "0", "2".getBytes(StandardCharsets.UTF_8)));
+        }
+    }
+
+    @Test
+    public void TestWorkbenchSendDuringSimulationQueueFull() throws Exception {
+        SequenceMessageProcessor processor = new SequenceMessageProcessor();
+        try (Workbench workbench = new Workbench(2)) {
+            workbench.setSimulationInboundCapacity(2, Duration.ZERO);
+            workbench.addRealTimeModel("Sequence", processor, SimpleDigitalTwin.class);
+            workbench.addSimulationModel("SimSimple", new SimpleMessageProcessor(), new SimpleSimProcessor(), SimpleDigitalTwin.class);
+            workbench.addInstance("SimSimple", "1", new SimpleDigitalTwin("hello1"));
+            long startTimeMs = System.currentTimeMillis();
+            SimulationStep result = workbench.initializeSimulation(startTimeMs, startTimeMs + 3000L, 1000L);
+            Assert.assertSame(SendingResult.Enqueued, workbench.send("Sequence", "0", "1".getBytes(StandardCharsets.UTF_8)));
+            Assert.assertSame(SendingResult.Enqueued, workbench.send("Sequence", "1", "1".getBytes(StandardCharsets.UTF_8)));
+            // the queue is full and the sending thread is the stepping thread, so the send fails instead of waiting
+            Assert.assertSame(SendingResult.NotHandled, workbench.send("Sequence", "2", "1".getBytes(StandardCharsets.UTF_8)));
+            List<WorkbenchMessage> batch = Arrays.asList(new WorkbenchMessage("3", "1".getBytes(StandardCharsets.UTF_8)), new WorkbenchMessage("4", "1".getBytes(StandardCharsets.UTF_8)));
+            Assert.assertEquals(Arrays.asList(SendingResult.NotHandled, SendingResult.NotHandled), workbench.sendAll("Sequence", batch));
+            try {
+                workbench.setSimulationInboundCapacity(4);
+                Assert.fail("Expected the capacity to be fixed while the simulation runs.");
+            } catch (WorkbenchException e) {
+                // expected
+            }
+            result = workbench.step();
+            Assert.assertEquals(2, processor.getProcessed());
+            Assert.assertEquals(Arrays.asList(SendingResult.Enqueued, SendingResult.Enqueued), workbench.sendAll("Sequence", batch));
+            while (result.getStatus() == SimulationStatus.Running) {
+                result = workbench.step();
+            }
+            // messages still queued when the simulation stops are delivered
+            Assert.assertEquals(4, processor.getProcessed());
+            workbench.setSimulationInboundCapacity(4);
+            Assert.assertSame(SendingResult.Handled, workbench.send("Sequence", "2", "1".getBytes(StandardCharsets.UTF_8)));
+            Assert.assertEquals(5, processor.getProcessed());
+        }
+    }
+
+    @Test
+    public void TestWorkbenchTwinFactory() throws Exception {
+        AtomicInteger created = new AtomicInteger(0);
+        Gson gson = new Gson();
+        try (Workbench workbench = new Workbench()) {
+            workbench.addRealTimeModel("RealTimeCar", new RealTimeCarMessageProcessor(), RealTimeCar.class, () -> {
+                created.incrementAndGet();
+                return new RealTimeCar(50);
+            });
+            workbench.addRealTimeModel("Sequence", new SequenceMessageProcessor(), SimpleDigitalTwin.class);
+            byte[] message = gson.toJson(new TirePressureMessage(10)).getBytes(StandardCharsets.UTF_8);
+            workbench.send("RealTimeCar", "car", message);
+            workbench.send("RealTimeCar", "car", message);
+            Assert.assertEquals(1, created.get());
+            Assert.assertEquals(70, ((RealTimeCar) workbench.getInstances("RealTimeCar").get("car")).getTirePressure());
+            // without a factory the parameterless constructor is used
+            for (int twinCount = 0; twinCount < 1000; twinCount++) {
+                workbench.send("Sequence", "" + twinCount, "1".getBytes(StandardCharsets.UTF_8));
+            }
+            Assert.assertEquals(1000, workbench.getInstances("Sequence").size());
+        }
+    }
+
+    @Test
+    public void TestWorkbenchByteBufferMessages() throws Exception {
+        BufferMessageProcessor bufferProcessor = new BufferMessageProcessor();
+        SequenceMessageProcessor sequenceProcessor = new SequenceMessageProcessor();
+        try (Workbench workbench = new Workbench(2)) {
+            workbench.addRealTimeModel("Buffer", bufferProcessor, SimpleDigitalTwin.class);
+            workbench.addRealTimeModel("Sequence", sequenceProcessor, SimpleDigitalTwin.class);
+            // ten one-digit messages in a single direct buffer, handed to the twins as slices
+            ByteBuffer capture = ByteBuffer.allocateDirect(10);
+            capture.put("0123456789".getBytes(StandardCharsets.UTF_8)).flip();
+            List<WorkbenchMessage> batch = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                ByteBuffer slice = capture.duplicate();
+                slice.position(i).limit(i + 1);
+                Assert.assertSame(SendingResult.Handled, workbench.send("Buffer", "" + i, slice.slice()));
+                batch.add(new WorkbenchMessage("" + i, slice.slice()));
+            }
+            workbench.send("Buffer", "0", new byte[5]);
+            Assert.assertEquals(10, bufferProcessor.getDirectBuffers());
+            Assert.assertEquals(15, bufferProcessor.getByteTotal());
+            // processors without a ByteBuffer override receive the bytes as an array
+            List<SendingResult> results = workbench.sendAll("Sequence", batch);
+            for (SendingResult result : results) {
+                Assert.assertSame(SendingResult.Handled, result);
+            }
+            Assert.assertEquals(10, sequenceProcessor.getProcessed());
+            Assert.assertEquals(0, sequenceProcessor.getOutOfOrder());
+        }
+    }
+
+    @Test
+    public void TestWorkbenchTypedMessageProcessor() throws Exception {
+        TypedCountingProcessor jsonProcessor = new TypedCountingProcessor(null);
+        CountingCodec binaryCodec = new CountingCodec(new BinaryMessageCodec<>(TypedMessage.class));
+        TypedCountingProcessor binaryProcessor = new TypedCountingProcessor(binaryCodec);
+        try (Workbench workbench = new Workbench(2)) {
+            workbench.addRealTimeModel("Json", jsonProcessor, SimpleDigitalTwin.class);
+            workbench.addRealTimeModel("Binary", binaryProcessor, SimpleDigitalTwin.class);
+            Gson gson = new Gson();
+            Assert.assertSame(SendingResult.Handled, workbench.send("Json", "a", gson.toJson(new TypedMessage("json", 3, 4)).getBytes(StandardCharsets.UTF_8)));
+            ByteBuffer buffer = ByteBuffer.allocateDirect(64);
+            buffer.put(gson.toJson(new TypedMessage("json", 5, null)).getBytes(StandardCharsets.UTF_8)).flip();
+            Assert.assertSame(SendingResult.Handled, workbench.send("Json", "a", buffer));
+            Assert.assertEquals(2, jsonProcessor.getProcessed());
+            Assert.assertEquals(12, jsonProcessor.getValueTotal());
+
+            // one payload sent to many twins is decoded once
+            byte[] shared = binaryCodec.encode(new TypedMessage("binary", 2, 1));
+            List<WorkbenchMessage> batch = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                batch.add(new WorkbenchMessage("" + i, shared));
+            }
+            for (SendingResult result : workbench.sendAll("Binary", batch)) {
+                Assert.assertSame(SendingResult.Handled, result);
+            }
+            Assert.assertEquals(20, binaryProcessor.getProcessed());
+            Assert.assertEquals(60, binaryProcessor.getValueTotal());
+            Assert.assertEquals(1, binaryCodec.getDecoded());
+            Assert.assertEquals(20, workbench.getInstances("Binary").size());
+
+            workbench.send("Binary", "0", binaryCodec.encode(new TypedMessage("remove", 0, null)));
+            Assert.assertEquals(19, workbench.getInstances("Binary").size());
+        }
+    }
+
+    @Test
+    public void TestWorkbenchMessageCoalescing() throws Exception {
+        CoalescingMessageProcessor none = new CoalescingMessageProcessor();
+        CoalescingMessageProcessor latest = new CoalescingMessageProcessor();
+        CoalescingMessageProcessor merge = new CoalescingMessageProcessor();
+        CoalescingMessageProcessor batch = new CoalescingMessageProcessor();
+        try (Workbench workbench = new Workbench(2)) {
+            workbench.addRealTimeModel("None", none, SimpleDigitalTwin.class);
+            workbench.addRealTimeModel("Latest", latest, SimpleDigitalTwin.class);
+            workbench.addRealTimeModel("Merge", merge, SimpleDigitalTwin.class);
+            workbench.addRealTimeModel("Batch", batch, SimpleDigitalTwin.class);
+            workbench.setMessageCoalescing("Latest", MessageCoalescing.Latest);
+            workbench.setMessageCoalescing("Merge", (a, b) -> {
+                byte[] merged = Arrays.copyOf(a, a.length + b.length);
+                System.arraycopy(b, 0, merged, a.length, b.length);
+                return merged;
+            });
+            workbench.setMessageCoalescing("Batch", MessageCoalescing.Batch);
+            // a burst of ten readings for each of five twins
+            List<WorkbenchMessage> burst = new ArrayList<>();
+            for (int reading = 0; reading < 10; reading++) {
+                for (int twin = 0; twin < 5; twin++) {
+                    burst.add(new WorkbenchMessage("" + twin, ("" + reading).getBytes(StandardCharsets.UTF_8)));
+                }
+            }
+            for (String model : new String[] {"None", "Latest", "Merge", "Batch"}) {
+                for (SendingResult result : workbench.sendAll(model, burst)) {
+                    Assert.assertSame(SendingResult.Handled, result);
+                }
+            }
+            Assert.assertEquals(50, none.getCalls());
+            Assert.assertEquals(5, latest.getCalls());
+            Assert.assertEquals(5, latest.getMessages());
+            Assert.assertEquals(5, merge.getCalls());
+            Assert.assertEquals(5, batch.getCalls());
+            Assert.assertEquals(50, batch.getMessages());
+            for (int twin = 0; twin < 5; twin++) {
+                Assert.assertEquals("9", none.getLast("" + twin));
+                Assert.assertEquals("9", latest.getLast("" + twin));
+                Assert.assertEquals("0123456789", merge.getLast("" + twin));
+                Assert.assertEquals("9", batch.getLast("" + twin));
+            }
+            // a single send is a batch of one
+            workbench.send("Batch", "0", "x".getBytes(StandardCharsets.UTF_8));
+            Assert.assertEquals(6, batch.getCalls());
+            Assert.assertEquals("x", batch.getLast("0"));
+        }
+    }
+
+    @Test(expected = WorkbenchException.class)
+    public void TestWorkbenchMessageCoalescingTypedBatch() throws Exception {
+        try (Workbench workbench = new Workbench()) {
+            workbench.addRealTimeModel("Typed", new TypedCountingProcessor(null), SimpleDigitalTwin.class);
+            workbench.setMessageCoalescing("Typed", MessageCoalescing.Batch);
+        }
+    }
+
+    @Test
+    public void TestWorkbenchTelemetryReplay() throws Exception {
+        SequenceMessageProcessor sequenceProcessor = new SequenceMessageProcessor();
+        CoalescingMessageProcessor rawProcessor = new CoalescingMessageProcessor();
+        Path json = Files.createTempFile("capture", ".ndjson");
+        Path binary = Files.createTempFile("capture", ".bin");
+        try (Workbench workbench = new Workbench(2)) {
+            workbench.addRealTimeModel("Sequence", sequenceProcessor, SimpleDigitalTwin.class);
+            workbench.addRealTimeModel("Raw", rawProcessor, SimpleDigitalTwin.class);
+            StringBuilder lines = new StringBuilder();
+            try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(binary))) {
+                for (int seq = 0; seq < 20; seq++) {
+                    for (int twin = 0; twin < 5; twin++) {
+                        lines.append(String.format("{\"model\":\"Sequence\",\"id\":\"%d\",\"timestamp\":%d,\"payload\":%d}\n", twin, seq, seq));
+                        writeCaptureRecord(out, "Sequence", "" + twin, seq, ("" + seq).getBytes(StandardCharsets.UTF_8));
+                    }
+                }
+                writeCaptureRecord(out, "Missing", "0", 20, new byte[1]);
+            }
+            lines.append("\n{ \"payload\" : {\"x\":[1,\"}\"]}, \"id\":\"a\\\"b\", \"model\":\"Raw\" }\r\n");
+            lines.append("{\"model\":\"Missing\",\"id\":\"0\",\"payload\":0}");
+            Files.write(json, lines.toString().getBytes(StandardCharsets.UTF_8));
+
+            // a small mapping size forces records to straddle mapped regions
+            TelemetryReplay replay = new TelemetryReplay(workbench, json, CaptureFormat.NDJson);
+            replay.setMappingSize(64);
+            ReplayMetrics metrics = replay.run();
+            Assert.assertEquals(102, metrics.getMessages());
+            Assert.assertEquals(1, metrics.getNotHandled());
+            Assert.assertEquals(100, sequenceProcessor.getProcessed());
+            Assert.assertEquals(0, sequenceProcessor.getOutOfOrder());
+            Assert.assertEquals("{\"x\":[1,\"}\"]}", rawProcessor.getLast("a\"b"));
+            Assert.assertTrue(metrics.getMessagesPerSecond() > 0);
+            Assert.assertTrue(metrics.getMaxLatencyNanos() >= metrics.getP99LatencyNanos());
+
+            metrics = new TelemetryReplay(workbench, binary, CaptureFormat.Binary).run();
+            Assert.assertEquals(101, metrics.getMessages());
+            Assert.assertEquals(1, metrics.getNotHandled());
+            Assert.assertEquals(200, sequenceProcessor.getProcessed());
+
+            // 20 ms of recorded time replayed at double speed takes at least 10 ms
+            metrics = new TelemetryReplay(workbench, binary, CaptureFormat.Binary).setSpeedup(2).run();
+            Assert.assertTrue(metrics.getElapsedNanos() >= 10_000_000L);
+        } finally {
+            Files.deleteIfExists(json);
+            Files.deleteIfExists(binary);
+        }
+    }
+
+    @Test(expected = WorkbenchException.class)
+    public void TestWorkbenchTelemetryReplayTruncated() throws Exception {
+        Path binary = Files.createTempFile("capture", ".bin");
+        try (Workbench workbench = new Workbench()) {
+            Files.write(binary, new byte[] {0, 0, 0, 10, 'S'});
+            new TelemetryReplay(workbench, binary, CaptureFormat.Binary).run();
+        } finally {
+            Files.deleteIfExists(binary);
+        }
+    }
+
+    private static void writeCaptureRecord(DataOutputStream out, String model, String id, long timestamp, byte[] payload) throws IOException {
+        byte[] modelBytes = model.getBytes(StandardCharsets.UTF_8);
+        byte[] idBytes = id.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(modelBytes.length);
+        out.write(modelBytes);
+        out.writeInt(idBytes.length);
+        out.write(idBytes);
+        out.writeLong(timestamp);
+        out.writeInt(payload.length);
+        out.write(payload);
+    }
+
+    @Test
+    public void TestWorkbenchSharedDataAtomic() throws Exception {
+        try (Workbench workbench = new Workbench(4)) {
+            workbench.addRealTimeModel("Counter", new SharedCounterMessageProcessor(), SimpleDigitalTwin.class);
+            List<WorkbenchMessage> messages = new ArrayList<>();
+            for (int i = 0; i < 2000; i++) {
+                messages.add(new WorkbenchMessage("" + (i % 100), new byte[] {7}));
+            }
+            List<CompletableFuture<List<SendingResult>>> senders = new ArrayList<>();
+            for (int sender = 0; sender < 4; sender++) {
+                senders.add(CompletableFuture.supplyAsync(() -> {
+                    try {
+                        return workbench.sendAll("Counter", messages);
+                    } catch (WorkbenchException e) {
+                        throw new RuntimeException(e);
+                    }
+                }));
+            }
+            for (CompletableFuture<List<SendingResult>> sender : senders) {
+                sender.get();
+            }
+            workbench.awaitQueuedMessages();
+            SharedData global = workbench.getSharedGlobalData();
+            Assert.assertEquals(8000L, (long) global.getAndAdd("count", 0).get());
+            Assert.assertEquals(8000, workbench.getSharedModelData("Counter").get("log").get().getValue().length);
+
+            byte[] a = "a".getBytes(StandardCharsets.UTF_8);
+            byte[] b = "b".getBytes(StandardCharsets.UTF_8);
+            Assert.assertSame(CacheOperationStatus.ObjectPut, global.putIfAbsent("key", a).get().getStatus());
+            CacheResult result = global.putIfAbsent("key", b).get();
+            Assert.assertSame(CacheOperationStatus.ObjectRetrieved, result.getStatus());
+            Assert.assertArrayEquals(a, result.getValue());
+            Assert.assertSame(CacheOperationStatus.ObjectRetrieved, global.compareAndSet("key", b, b).get().getStatus());
+            Assert.assertSame(CacheOperationStatus.ObjectPut, global.compareAndSet("key", "a".getBytes(StandardCharsets.UTF_8), b).get().getStatus());
+            Assert.assertArrayEquals(b, global.get("key").get().getValue());
+            Assert.assertSame(CacheOperationStatus.ObjectDoesNotExist, global.compareAndSet("missing", a, b).get().getStatus());
+            Assert.assertSame(CacheOperationStatus.ObjectPut, global.compareAndSet("missing", null, b).get().getStatus());
+            Assert.assertSame(CacheOperationStatus.ObjectRemoved, global.compute("key", (k, v) -> null).get().getStatus());
+            Assert.assertSame(CacheOperationStatus.ObjectDoesNotExist, global.get("key").get().getStatus());
+            Assert.assertTrue(global.getAndIncrement("missing").isCompletedExceptionally());
+        }
+    }
+
+    @Test
+    public void TestWorkbenchSharedDataReadAllocationFree() throws Exception {
+        com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        SharedReadMessageProcessor processor = new SharedReadMessageProcessor();
+        int sends = 100000;
+        try (Workbench workbench = new Workbench()) {
+            workbench.addRealTimeModel("Reader", processor, SimpleDigitalTwin.class);
+            workbench.addSharedModelData("Reader", "table", new byte[100]);
+            workbench.addGlobalModelData("limits", new byte[10]);
+            Assert.assertEquals(100, workbench.getSharedModelData("Reader").getValue("table").length);
+            Assert.assertNull(workbench.getSharedGlobalData().getValue("table"));
+            byte[] message = new byte[16];
+            workbench.send("Reader", "twin", message);
+            for (int i = 0; i < sends; i++) {
+                workbench.send("Reader", "twin", message);
+            }
+            long threadId = Thread.currentThread().getId();
+            long start = threadBean.getThreadAllocatedBytes(threadId);
+            for (int i = 0; i < sends; i++) {
+                workbench.send("Reader", "twin", message);
+            }
+            long allocated = threadBean.getThreadAllocatedBytes(threadId) - start;
+            Assert.assertEquals(110L * (2 * sends + 1), processor.getBytesRead());
+            Assert.assertFalse(processor.isHandleChanged());
+            Assert.assertEquals(0L, allocated / sends);
+        }
+    }
+
+    @Test
+    public void TestWorkbenchSharedDataBulk() throws Exception {
+        try (Workbench workbench = new Workbench()) {
+            workbench.addRealTimeModel("Simple", new SimpleMessageProcessor(), SimpleDigitalTwin.class);
+            SharedData shared = workbench.getSharedModelData("Simple");
+            Map<String, byte[]> values = new HashMap<>();
+            List<String> keys = new ArrayList<>();
+            for (int i = 0; i < 50; i++) {
+                values.put("key" + i, new byte[] {(byte) i});
+                keys.add("key" + i);
+            }
+            shared.putAll(values).get();
+            keys.add("missing");
+            Map<String, byte[]> read = shared.getAll(keys).get();
+            Assert.assertEquals(50, read.size());
+            Assert.assertFalse(read.containsKey("missing"));
+            Assert.assertArrayEquals(new byte[] {49}, read.get("key49"));
+            Map<String, byte[]> removed = shared.removeAll(Arrays.asList("key0", "key1", "missing")).get();
+            Assert.assertEquals(2, removed.size());
+            Assert.assertArrayEquals(new byte[] {1}, removed.get("key1"));
+            Assert.assertEquals(48, shared.getAll(keys).get().size());
+            Assert.assertSame(CacheOperationStatus.ObjectDoesNotExist, shared.get("key0").get().getStatus());
+        }
+    }
+
+    @Test
+    public void TestWorkbenchMappedSharedData() throws Exception {
+        Path file = Files.createTempFile("shared", ".dat");
+        try {
+            try (MappedSharedData mapped = MappedSharedData.create(file, 3, 1 << 16)) {
+                Assert.assertSame(CacheOperationStatus.ObjectPut, mapped.put("limits", new byte[10]).get().getStatus());
+                mapped.put("route", new byte[] {1, 2, 3}).get();
+                ByteBuffer view = mapped.getBuffer("route");
+                mapped.put("route", new byte[] {4, 5}).get();
+                // a replaced value's view still holds the old value
+                Assert.assertEquals(3, view.remaining());
+                Assert.assertTrue(view.isDirect());
+                Assert.assertTrue(view.isReadOnly());
+                Assert.assertArrayEquals(new byte[] {4, 5}, mapped.getValue("route"));
+                Assert.assertSame(CacheOperationStatus.ObjectRemoved, mapped.remove("route").get().getStatus());
+                Assert.assertNull(mapped.getBuffer("route"));
+                Assert.assertSame(CacheOperationStatus.ObjectDoesNotExist, mapped.get("route").get().getStatus());
+                mapped.put("route", new byte[] {6}).get();
+                Assert.assertTrue(mapped.put("large", new byte[1 << 16]).isCompletedExceptionally());
+            }
+            try (MappedSharedData small = MappedSharedData.create(file, 3, 1 << 10)) {
+                // three entries get eight slots, which hold at most six keys
+                for (int i = 0; i < 6; i++) {
+                    Assert.assertSame(CacheOperationStatus.ObjectPut, small.put("key" + i, new byte[] {(byte) i}).get().getStatus());
+                }
+                Assert.assertTrue(small.put("key6", new byte[1]).isCompletedExceptionally());
+                Assert.assertEquals(6, small.size());
+            }
+            try (MappedSharedData mapped = MappedSharedData.create(file, 100, 1 << 16)) {
+                mapped.put("limits", new byte[10]).get();
+                mapped.put("route", new byte[] {6}).get();
+            }
+            // a reopened file is mapped, not loaded
+            try (MappedSharedData mapped = MappedSharedData.open(file);
+                 Workbench workbench = new Workbench()) {
+                Assert.assertEquals(2, mapped.size());
+                Assert.assertArrayEquals(new byte[] {6}, mapped.getValue("route"));
+                SharedReadMessageProcessor processor = new SharedReadMessageProcessor();
+                workbench.addRealTimeModel("Reader", processor, SimpleDigitalTwin.class);
+                workbench.addSharedModelData("Reader", "table", new byte[100]);
+                workbench.setSharedGlobalData(mapped);
+                workbench.send("Reader", "twin", new byte[1]);
+                Assert.assertEquals(110, processor.getBytesRead());
+                Assert.assertSame(mapped, workbench.getSharedGlobalData());
+                mapped.clear().get();
+                Assert.assertEquals(0, mapped.size());
+                Assert.assertNull(mapped.getValue("limits"));
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void TestWorkbenchMappedSharedDataAtomics() throws Exception {
+        Path file = Files.createTempFile("shared", ".dat");
+        try (MappedSharedData mapped = MappedSharedData.create(file, 16, 1 << 16)) {
+            Assert.assertSame(CacheOperationStatus.ObjectPut, mapped.putIfAbsent("route", new byte[] {1}).get().getStatus());
+            CacheResult existing = mapped.putIfAbsent("route", new byte[] {2}).get();
+            Assert.assertSame(CacheOperationStatus.ObjectRetrieved, existing.getStatus());
+            Assert.assertArrayEquals(new byte[] {1}, existing.getValue());
+            Assert.assertTrue(mapped.putIfAbsent("route", null).isCompletedExceptionally());
+
+            Assert.assertSame(CacheOperationStatus.ObjectPut, mapped.compareAndSet("route", new byte[] {1}, new byte[] {3}).get().getStatus());
+            CacheResult stale = mapped.compareAndSet("route", new byte[] {1}, new byte[] {4}).get();
+            Assert.assertSame(CacheOperationStatus.ObjectRetrieved, stale.getStatus());
+            Assert.assertArrayEquals(new byte[] {3}, stale.getValue());
+            Assert.assertSame(CacheOperationStatus.ObjectDoesNotExist, mapped.compareAndSet("missing", new byte[] {1}, new byte[] {4}).get().getStatus());
+            Assert.assertSame(CacheOperationStatus.ObjectPut, mapped.compareAndSet("missing", null, new byte[] {4}).get().getStatus());
+
+            Assert.assertEquals(0L, (long) mapped.getAndIncrement("counter").get());
+            Assert.assertEquals(1L, (long) mapped.getAndAdd("counter", 10).get());
+            Assert.assertEquals(11L, (long) mapped.getAndAdd("counter", 0).get());
+            Assert.assertTrue(mapped.getAndIncrement("route").isCompletedExceptionally());
+
+            CacheResult computed = mapped.compute("route", (k, v) -> new byte[] {(byte) (v[0] + 1)}).get();
+            Assert.assertSame(CacheOperationStatus.ObjectPut, computed.getStatus());
+            Assert.assertArrayEquals(new byte[] {4}, mapped.getValue("route"));
+            Assert.assertSame(CacheOperationStatus.ObjectRemoved, mapped.compute("route", (k, v) -> null).get().getStatus());
+            Assert.assertSame(CacheOperationStatus.ObjectDoesNotExist, mapped.compute("route", (k, v) -> null).get().getStatus());
+            Assert.assertEquals(2, mapped.size());
+
+            // concurrent increments are not lost
+            List<Thread> threads = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                threads.add(new Thread(() -> {
+                    for (int j = 0; j < 250; j++) mapped.getAndIncrement("hits").join();
+                }));
+            }
+            for (Thread thread : threads) thread.start();
+            for (Thread thread : threads) thread.join();
+            Assert.assertEquals(1000L, (long) mapped.getAndAdd("hits", 0).get());
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void TestWorkbenchSharedDataStepSnapshot() throws Exception {
+        StepSnapshotSimProcessor processor = new StepSnapshotSimProcessor();
+        try (Workbench workbench = new Workbench(4)) {
+            workbench.setSharedDataIsolation(SharedDataIsolation.StepSnapshot);
+            workbench.addSimulationModel("SimSnapshot", new SimpleMessageProcessor(), processor, SimpleDigitalTwin.class);
+            for (int i = 0; i < 40; i++) {
+                workbench.addInstance("SimSnapshot", "twin" + i, new SimpleDigitalTwin("twin" + i));
+            }
+            long startTimeMs = System.currentTimeMillis();
+            SimulationStep result = workbench.initializeSimulation(startTimeMs, startTimeMs + 5000L, 1000L);
+            try {
+                workbench.setSharedDataIsolation(SharedDataIsolation.None);
+                Assert.fail("Expected the isolation to be fixed while the simulation runs.");
+            } catch (WorkbenchException e) {
+                // expected
+            }
+            while (result.getStatus() == SimulationStatus.Running) {
+                result = workbench.step();
+            }
+            Assert.assertEquals(40, processor.getObserved().size());
+            List<Long> expected = null;
+            for (List<Long> observed : processor.getObserved().values()) {
+                if(expected == null) expected = observed;
+                Assert.assertEquals(expected, observed);
+            }
+            for (int i = 0; i < expected.size(); i++) {
+                Assert.assertEquals(i, (long) expected.get(i));
+            }
+            SharedData global = workbench.getSharedGlobalData();
+            Assert.assertEquals(expected.size(), ByteBuffer.wrap(global.getValue("step")).getLong());
+            // writes are published in model and twin id order, so the greatest id wins
+            Assert.assertEquals("twin9", new String(global.getValue("last"), StandardCharsets.UTF_8));
+            Assert.assertNull(global.getValue("count"));
+            Assert.assertEquals(40 * expected.size(), processor.getAtomicFailures());
+            Assert.assertEquals(expected.size() - 1, workbench.getSharedModelData("SimSnapshot").getValue("twin0")[0]);
+        }
+    }
+
+    @Test
+    public void TestWorkbenchMailboxesRetiredWithTwins() throws Exception {
+        RemovingMessageProcessor processor = new RemovingMessageProcessor();
+        try (Workbench workbench = new Workbench(4)) {
+            workbench.addRealTimeModel("Removing", processor, SimpleDigitalTwin.class);
+            for (int i = 0; i < 1000; i++) {
+                workbench.send("Removing", "single" + i, new byte[] {1});
+            }
+            Assert.assertEquals(1000, processor.getProcessed());
+            Assert.assertEquals(0, workbench.getMailboxCount("Removing"));
+            // senders race with the removal of the twins they address
+            List<WorkbenchMessage> messages = new ArrayList<>();
+            for (int i = 0; i < 4000; i++) {
+                messages.add(new WorkbenchMessage("" + (i % 20), new byte[] {(byte)(i % 3)}));
+            }
+            List<CompletableFuture<List<SendingResult>>> senders = new ArrayList<>();
+            for (int sender = 0; sender < 4; sender++) {
+                senders.add(CompletableFuture.supplyAsync(() -> {
+                    try {
+                        return workbench.sendAll("Removing", messages);
+                    } catch (WorkbenchException e) {
+                        throw new RuntimeException(e);
+                    }
+                }));
+            }
+            for (CompletableFuture<List<SendingResult>> sender : senders) {
+                sender.get();
+            }
+            workbench.awaitQueuedMessages();
+            Assert.assertEquals(1000 + 4 * 4000, processor.getProcessed());
+            Assert.assertEquals(0, processor.getOverlaps());
+            Assert.assertTrue(workbench.getMailboxCount("Removing") <= workbench.getInstances("Removing").size());
+        }
+    }
+
+    @Test
+    public void TestWorkbenchRunThisInstanceQueuedEvent() throws Exception {
+        for(SimulationEventQueueType queueType : SimulationEventQueueType.values()) {
+            SimpleSimProcessor sleeperProcessor = new SimpleSimProcessor();
+            try (Workbench workbench = new Workbench()) {
+                workbench.setSimulationEventQueue(queueType);
+                workbench.addSimulationModel("Simple", new SimpleMessageProcessor(), new SimpleSimProcessor("Simple2", "sleeper"), SimpleDigitalTwin.class);
+                workbench.addSimulationModel("Simple2", new SimpleMessageProcessor(), sleeperProcessor, SimpleDigitalTwin.class);
+
+                workbench.addInstance("Simple", "waker", new SimpleDigitalTwin("waker"));
+                workbench.addInstance("Simple2", "sleeper", new SimpleDigitalTwin("sleeper"));
+                for (int twinCount = 0; twinCount < 100; twinCount++) {
+                    workbench.addInstance("Simple2", "sleeper" + twinCount, new SimpleDigitalTwin("sleeper" + twinCount));
+                }
+                long startTimeMs = System.currentTimeMillis();
+                SimulationStep result = workbench.initializeSimulation(startTimeMs, startTimeMs + 15000L, 1000L);
+                while (result.getStatus() == SimulationStatus.Running) {
+                    result = workbench.step();
+                }
+                // the sleepers run once and delay indefinitely; the waker removes "sleeper" from its queue and runs
+                // it at every step
+                int invoked = sleeperProcessor.getTimesInvoked();
+                Assert.assertTrue(invoked >= 101 + 15 && invoked <= 101 + 16);
+                SimpleDigitalTwin sleeper = (SimpleDigitalTwin) workbench.getInstances("Simple2").get("sleeper");
+                Assert.assertEquals("asleep", sleeper._stringProp);
+            }
+        }
+    }
+
     @Test
     public void TestWorkbenchInitSimulation() throws Exception {
         try (Workbench workbench = new Workbench()) {
@@ -825,4 +1942,215 @@ public class TestWorkbench {
             throw e;
         }
     }
+
+    @Test
+    public void TestWorkbenchPersistentWorkers() throws Exception {
+        runDelayedTwinSimulation(SimulationExecutionMode.Persistent, SimulationEventQueueType.Heap);
+    }
+
+    @Test
+    public void TestWorkbenchWorkStealing() throws Exception {
+        runDelayedTwinSimulation(SimulationExecutionMode.WorkStealing, SimulationEventQueueType.Heap);
+    }
+
+    @Test
+    public void TestWorkbenchParallelModelSteps() throws Exception {
+        SimpleSimProcessor processor = new SimpleSimProcessor();
+        SimpleSimProcessor otherProcessor = new SimpleSimProcessor();
+        SimulationStep result;
+        try (Workbench workbench = new Workbench(2)) {
+            workbench.setParallelModelSteps(true);
+            workbench.useSharedSimulationThreadPool(2);
+            workbench.addRealTimeModel("Simple", new SimpleMessageProcessor(), SimpleDigitalTwin.class);
+            workbench.addSimulationModel("SimSimple", new SimpleMessageProcessor(), processor, SimpleDigitalTwin.class);
+            workbench.addSimulationModel("OtherSimSimple", new SimpleMessageProcessor(), otherProcessor, SimpleDigitalTwin.class);
+
+            for (int twinCount = 0; twinCount < 1000; twinCount++) {
+                workbench.addInstance("SimSimple", "" + twinCount, new SimpleDigitalTwin("hello" + twinCount));
+                workbench.addInstance("OtherSimSimple", "" + twinCount, new SimpleDigitalTwin("hello" + twinCount));
+            }
+            result = workbench.initializeSimulation(System.currentTimeMillis(), System.currentTimeMillis() + 60000, 1000);
+            while (result.getStatus() == SimulationStatus.Running) {
+                result = workbench.step();
+            }
+            Assert.assertSame(SimulationStatus.EndTimeReached, result.getStatus());
+            Assert.assertEquals(1249, processor.getTimesInvoked());
+            Assert.assertEquals(1249, otherProcessor.getTimesInvoked());
+        }
+    }
+
+    @Test(expected = WorkbenchException.class)
+    public void TestWorkbenchSharedSimulationThreadPoolSizedOnce() throws Exception {
+        try (Workbench workbench = new Workbench()) {
+            workbench.useSharedSimulationThreadPool(4);
+            workbench.useSharedSimulationThreadPool(8);
+        }
+    }
+
+    @Test
+    public void TestWorkbenchSharedSimulationThreadPoolDedicatedModes() throws Exception {
+        try (Workbench workbench = new Workbench()) {
+            workbench.setSimulationExecutionMode(SimulationExecutionMode.WorkStealing);
+            try {
+                workbench.useSharedSimulationThreadPool(4);
+                Assert.fail("Expected the shared pool to be rejected for the WorkStealing mode.");
+            } catch (WorkbenchException e) {
+                // expected
+            }
+            workbench.setSimulationExecutionMode(SimulationExecutionMode.Pooled);
+            workbench.useSharedSimulationThreadPool(4);
+            try {
+                workbench.setSimulationExecutionMode(SimulationExecutionMode.Persistent);
+                Assert.fail("Expected the Persistent mode to be rejected with a shared pool.");
+            } catch (WorkbenchException e) {
+                // expected
+            }
+            workbench.setSimulationExecutionMode(SimulationExecutionMode.VirtualThreads);
+        }
+    }
+
+    @Test
+    public void TestWorkbenchVirtualThreads() throws Exception {
+        runDelayedTwinSimulation(SimulationExecutionMode.VirtualThreads, SimulationEventQueueType.Heap);
+
+        BlockingSimProcessor processor = new BlockingSimProcessor();
+        try (Workbench workbench = new Workbench(1)) {
+            workbench.setSimulationExecutionMode(SimulationExecutionMode.VirtualThreads);
+            workbench.addSimulationModel("SimBlocking", new SimpleMessageProcessor(), processor, SimpleDigitalTwin.class);
+            for (int twinCount = 0; twinCount < 20; twinCount++) {
+                workbench.addInstance("SimBlocking", "" + twinCount, new SimpleDigitalTwin("hello" + twinCount));
+            }
+            long startTimeMs = System.currentTimeMillis();
+            SimulationStep result = workbench.initializeSimulation(startTimeMs, startTimeMs + 5000L, 1000L);
+            while (result.getStatus() == SimulationStatus.Running) {
+                result = workbench.step();
+            }
+            long elapsed = System.currentTimeMillis() - startTimeMs;
+            Assert.assertEquals(20, processor.getTimesInvoked());
+            // the blocked twins share a single worker but do not wait on each other
+            Assert.assertTrue(elapsed < 20 * 200);
+        }
+    }
+
+    @Test
+    public void TestWorkbenchVirtualThreadsFallbackLimit() throws Exception {
+        boolean virtualThreads;
+        try {
+            java.util.concurrent.Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            virtualThreads = true;
+        } catch (NoSuchMethodException e) {
+            virtualThreads = false;
+        }
+        BlockingSimProcessor processor = new BlockingSimProcessor();
+        try (Workbench workbench = new Workbench(1)) {
+            workbench.setSimulationExecutionMode(SimulationExecutionMode.VirtualThreads);
+            workbench.setSimulationEventThreadLimit(4);
+            workbench.addSimulationModel("SimBlocking", new SimpleMessageProcessor(), processor, SimpleDigitalTwin.class);
+            for (int twinCount = 0; twinCount < 20; twinCount++) {
+                workbench.addInstance("SimBlocking", "" + twinCount, new SimpleDigitalTwin("hello" + twinCount));
+            }
+            long startTimeMs = System.currentTimeMillis();
+            SimulationStep result = workbench.initializeSimulation(startTimeMs, startTimeMs + 5000L, 1000L);
+            while (result.getStatus() == SimulationStatus.Running) {
+                result = workbench.step();
+            }
+            Assert.assertEquals(20, processor.getTimesInvoked());
+            Assert.assertTrue(processor.getMaxBlocked() > 1);
+            if(!virtualThreads) {
+                // before Java 21 the twins share a bounded pool of platform threads
+                Assert.assertTrue(processor.getMaxBlocked() <= 4);
+            }
+        }
+    }
+
+    @Test
+    public void TestWorkbenchSimulationRebalancing() throws Exception {
+        UnevenSimProcessor processor = new UnevenSimProcessor();
+        try (Workbench workbench = new Workbench(2)) {
+            workbench.setSimulationRebalancing(2, 1.2);
+            workbench.addSimulationModel("SimUneven", new SimpleMessageProcessor(), processor, SimpleDigitalTwin.class);
+            // every slow twin hashes to the first worker
+            int slow = 0;
+            for (int twinCount = 0; slow < 20; twinCount++) {
+                String id = "slow" + twinCount;
+                if(Constants.getHash(id.getBytes(StandardCharsets.UTF_8)) % 2 == 0) {
+                    workbench.addInstance("SimUneven", id, new SimpleDigitalTwin(id));
+                    slow++;
+                }
+            }
+            for (int twinCount = 0; twinCount < 20; twinCount++) {
+                workbench.addInstance("SimUneven", "fast" + twinCount, new SimpleDigitalTwin("fast" + twinCount));
+            }
+            long startTimeMs = System.currentTimeMillis();
+            SimulationStep result = workbench.initializeSimulation(startTimeMs, startTimeMs + 20000L, 1000L);
+            while (result.getStatus() == SimulationStatus.Running) {
+                result = workbench.step();
+            }
+            SimulationRebalanceMetrics metrics = workbench.getSimulationRebalanceMetrics("SimUneven");
+            Assert.assertTrue(metrics.getRebalanceChecks() > 0);
+            Assert.assertTrue(metrics.getRebalances() > 0);
+            Assert.assertTrue(metrics.getTwinsMigrated() > 0);
+            Assert.assertEquals(2, metrics.getLastWorkerLoads().length);
+            // migrated twins are neither lost nor run twice
+            Assert.assertEquals(40, processor.getInvocations().size());
+            int expected = processor.getInvocations().get("fast0").get();
+            for (AtomicInteger invocations : processor.getInvocations().values()) {
+                Assert.assertEquals(expected, invocations.get());
+            }
+        }
+    }
+
+    @Test
+    public void TestWorkbenchCalendarEventQueue() throws Exception {
+        runDelayedTwinSimulation(SimulationExecutionMode.Pooled, SimulationEventQueueType.Calendar);
+        runDelayedTwinSimulation(SimulationExecutionMode.WorkStealing, SimulationEventQueueType.Calendar);
+    }
+
+    @Test
+    public void TestWorkbenchSimulationLookahead() throws Exception {
+        int steps = runDelayedTwinSimulation(SimulationExecutionMode.Pooled, SimulationEventQueueType.Heap, 1);
+        int lookaheadSteps = runDelayedTwinSimulation(SimulationExecutionMode.Pooled, SimulationEventQueueType.Heap, 5);
+        Assert.assertTrue(String.format("%d lookahead steps, %d steps", lookaheadSteps, steps), lookaheadSteps * 4 <= steps);
+        lookaheadSteps = runDelayedTwinSimulation(SimulationExecutionMode.WorkStealing, SimulationEventQueueType.Calendar, 5);
+        Assert.assertTrue(String.format("%d lookahead steps, %d steps", lookaheadSteps, steps), lookaheadSteps * 4 <= steps);
+        runDelayedTwinSimulation(SimulationExecutionMode.VirtualThreads, SimulationEventQueueType.Heap, 7);
+    }
+
+    @Test(expected = WorkbenchException.class)
+    public void TestWorkbenchSimulationLookaheadInvalid() throws Exception {
+        try (Workbench workbench = new Workbench()) {
+            workbench.setSimulationLookahead(0);
+        }
+    }
+
+    private void runDelayedTwinSimulation(SimulationExecutionMode mode, SimulationEventQueueType queueType) throws Exception {
+        runDelayedTwinSimulation(mode, queueType, 1);
+    }
+
+    private int runDelayedTwinSimulation(SimulationExecutionMode mode, SimulationEventQueueType queueType, int lookahead) throws Exception {
+        SimpleSimProcessor processor = new SimpleSimProcessor();
+        SimulationStep result;
+        int steps = 0;
+        try (Workbench workbench = new Workbench(4)) {
+            workbench.setSimulationExecutionMode(mode);
+            workbench.setSimulationEventQueue(queueType);
+            workbench.setSimulationLookahead(lookahead);
+            workbench.addRealTimeModel("Simple", new SimpleMessageProcessor(), SimpleDigitalTwin.class);
+            workbench.addSimulationModel("SimSimple", new SimpleMessageProcessor(), processor, SimpleDigitalTwin.class);
+
+            for (int twinCount = 0; twinCount < 1000; twinCount++) {
+                DigitalTwinBase instance = new SimpleDigitalTwin("hello" + twinCount);
+                workbench.addInstance("SimSimple", "" + twinCount, instance);
+            }
+            result = workbench.initializeSimulation(System.currentTimeMillis(), System.currentTimeMillis() + 60000, 1000);
+            while (result.getStatus() == SimulationStatus.Running) {
+                result = workbench.step();
+                steps++;
+            }
+            Assert.assertSame(SimulationStatus.EndTimeReached, result.getStatus());
+            // each id (0-999) delays for it's id in seconds
+            Assert.assertEquals(1249, processor.getTimesInvoked());
+        }
+        return steps;
+    }
 }